@@ -0,0 +1,69 @@
+package io.kestra.plugin.neo4j;
+
+import io.kestra.core.serializers.FileSerde;
+import io.kestra.plugin.neo4j.models.Compression;
+import io.kestra.plugin.neo4j.models.FileFormat;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading, chunking and parameter building of {@link Batch}, on an in-memory source file so no database is needed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BatchBenchmark {
+    @Param({"10000"})
+    public int size;
+
+    @Param({"100", "1000"})
+    public int chunk;
+
+    @Param({"ION", "CSV", "JSONL"})
+    public FileFormat format;
+
+    private byte[] source;
+
+    @Setup
+    public void setup() throws IOException {
+        List<Map<String, Object>> rows = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", i);
+            row.put("name", UUID.randomUUID().toString());
+            row.put("position", UUID.randomUUID().toString());
+            rows.add(row);
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ResultFileWriter writer = new ResultFileWriter.Format(format, null, Compression.NONE).open(output)) {
+            writer.writeAll(rows.iterator());
+        }
+
+        source = output.toByteArray();
+    }
+
+    @Benchmark
+    public void readAndChunk(Blackhole blackhole) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(source)), FileSerde.BUFFER_SIZE)) {
+            BatchSource.read(reader, format, ',', Map.of())
+                .buffer(chunk, chunk)
+                .map(Batch::parameters)
+                .doOnNext(blackhole::consume)
+                .blockLast();
+        }
+    }
+}
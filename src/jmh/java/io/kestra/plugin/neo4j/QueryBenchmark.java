@@ -0,0 +1,83 @@
+package io.kestra.plugin.neo4j;
+
+import io.kestra.plugin.neo4j.models.Compression;
+import io.kestra.plugin.neo4j.models.FileFormat;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Value;
+import org.neo4j.driver.Values;
+import org.neo4j.driver.internal.InternalRecord;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Record conversion and file serialization of {@link Query}, on synthetic records so no database is needed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class QueryBenchmark {
+    private static final RecordConverter CONVERTER = new RecordConverter(false);
+
+    @Param({"10000"})
+    public int size;
+
+    @Param({"ION", "CSV", "JSONL"})
+    public FileFormat format;
+
+    private List<Record> records;
+
+    private List<Map<String, Object>> rows;
+
+    @Setup
+    public void setup() {
+        records = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            Value node = Values.value(Map.of(
+                "id", i,
+                "name", UUID.randomUUID().toString(),
+                "score", i * 0.5,
+                "born", LocalDate.of(2000, 1, 1).plusDays(i % 3650),
+                "friends", List.of("a", "b", "c")
+            ));
+
+            records.add(new InternalRecord(
+                List.of("p", "id", "name", "score", "born"),
+                new Value[]{node, Values.value(i), Values.value("name" + i), Values.value(i * 0.5), Values.value(LocalDate.of(2000, 1, 1))}
+            ));
+        }
+
+        rows = Query.rows(records.stream(), CONVERTER).toList();
+    }
+
+    @Benchmark
+    public void convert(Blackhole blackhole) {
+        Query.rows(records.stream(), CONVERTER).forEach(blackhole::consume);
+    }
+
+    /**
+     * The generic conversion of the driver, as a baseline for {@link #convert(Blackhole)}.
+     */
+    @Benchmark
+    public void asMap(Blackhole blackhole) {
+        records.stream().map(Record::asMap).forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    public long writeAll() throws IOException {
+        ResultFileWriter.Format writerFormat = new ResultFileWriter.Format(format, null, Compression.NONE);
+
+        try (ResultFileWriter writer = writerFormat.open(OutputStream.nullOutputStream())) {
+            return writer.writeAll(rows.iterator());
+        }
+    }
+}
@@ -1,15 +1,28 @@
 package io.kestra.plugin.neo4j;
 
+import com.google.common.hash.Hashing;
 import io.kestra.core.exceptions.IllegalVariableEvaluationException;
+import io.kestra.core.models.executions.metrics.Counter;
+import io.kestra.core.models.executions.metrics.Timer;
 import io.kestra.core.models.property.Property;
 import io.kestra.core.models.tasks.Task;
 import io.kestra.core.runners.RunContext;
+import io.kestra.plugin.neo4j.models.TrustStrategy;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.experimental.SuperBuilder;
 import org.neo4j.driver.AuthToken;
 import org.neo4j.driver.AuthTokens;
+import org.neo4j.driver.Config;
+import org.neo4j.driver.ConnectionPoolMetrics;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.GraphDatabase;
+import org.neo4j.driver.SessionConfig;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 
 @SuperBuilder
 @NoArgsConstructor
@@ -34,6 +47,63 @@ public abstract class AbstractNeo4jConnection extends Task implements Neo4jConne
     )
     private Property<String> bearerToken;
 
+    @Schema(
+        title = "The database to use",
+        description = "If not specified, use the home database of the user, which the driver resolves with an extra round trip on new sessions."
+    )
+    private Property<String> database;
+
+    @Schema(
+        title = "The maximum number of connections the driver keeps to each server",
+        description = "If not specified, use the default of the driver (100)."
+    )
+    private Property<Integer> maxConnectionPoolSize;
+
+    @Schema(
+        title = "The maximum time to wait for a connection from the pool",
+        description = "If not specified, use the default of the driver (60 seconds)."
+    )
+    private Property<Duration> connectionAcquisitionTimeout;
+
+    @Schema(
+        title = "The maximum lifetime of a pooled connection",
+        description = "If not specified, use the default of the driver (1 hour)."
+    )
+    private Property<Duration> maxConnectionLifetime;
+
+    @Schema(
+        title = "The number of records fetched from the server at once",
+        description = "Records are pulled from the server by batches of this size while they are consumed, "
+            + "which bounds the memory used to read a result whatever its size. "
+            + "If not specified, use the default of the driver (1000)."
+    )
+    private Property<Integer> fetchSize;
+
+    @Schema(
+        title = "The idle time after which a pooled connection is tested before being used",
+        description = "If not specified, pooled connections are never tested."
+    )
+    private Property<Duration> connectionLivenessCheckTimeout;
+
+    @Schema(
+        title = "Whether to encrypt the connection",
+        description = "Can't be used with the `+s` and `+ssc` url schemes which already define the encryption. "
+            + "If not specified, use the default of the driver (not encrypted)."
+    )
+    private Property<Boolean> encrypted;
+
+    @Schema(
+        title = "How to trust the server certificate on encrypted connections",
+        description = "Can't be used with the `+s` and `+ssc` url schemes which already define the trust strategy."
+    )
+    private Property<TrustStrategy> trustStrategy;
+
+    @Schema(
+        title = "The number of threads used by the driver for network I/O",
+        description = "If not specified, use the default of the driver (twice the number of cores)."
+    )
+    private Property<Integer> eventLoopThreads;
+
     protected AuthToken credentials(RunContext runContext) throws IllegalVariableEvaluationException {
         if (username != null && password != null) {
             return AuthTokens.basic(runContext.render(username).as(String.class).orElseThrow(), runContext.render(password).as(String.class).orElseThrow());
@@ -45,4 +115,136 @@ public abstract class AbstractNeo4jConnection extends Task implements Neo4jConne
 
         return AuthTokens.none();
     }
+
+    /**
+     * Acquire a driver from the worker-wide {@link Neo4jDriverPool}, the lease must be closed once the task is done
+     * with the driver, which doesn't close the driver itself but let it be reused by the next task execution.
+     */
+    protected Neo4jDriverPool.Lease driver(RunContext runContext) throws IllegalVariableEvaluationException {
+        String url = runContext.render(getUrl()).as(String.class).orElse(null);
+        AuthToken credentials = this.credentials(runContext);
+        DriverOptions options = new DriverOptions(
+            runContext.render(maxConnectionPoolSize).as(Integer.class).orElse(null),
+            runContext.render(connectionAcquisitionTimeout).as(Duration.class).orElse(null),
+            runContext.render(maxConnectionLifetime).as(Duration.class).orElse(null),
+            runContext.render(connectionLivenessCheckTimeout).as(Duration.class).orElse(null),
+            runContext.render(encrypted).as(Boolean.class).orElse(null),
+            runContext.render(trustStrategy).as(TrustStrategy.class).orElse(null),
+            runContext.render(eventLoopThreads).as(Integer.class).orElse(null)
+        );
+
+        Neo4jDriverPool.Key key = new Neo4jDriverPool.Key(url, this.credentialsFingerprint(runContext), options.toString());
+
+        long start = System.nanoTime();
+        Neo4jDriverPool.Lease lease = Neo4jTracing.span("neo4j.driver.acquire", span -> {
+            span.setAttribute("url.full", url);
+
+            return Neo4jDriverPool.instance().acquire(key, () -> GraphDatabase.driver(url, credentials, options.config()));
+        });
+        runContext.metric(Timer.of("driver.acquire", Duration.ofNanos(System.nanoTime() - start)));
+
+        return lease;
+    }
+
+    /**
+     * Emit the state of the connection pools of the driver, which may be shared with other task executions.
+     */
+    protected void poolMetrics(RunContext runContext, Driver driver) {
+        long inUse = 0;
+        long idle = 0;
+        long acquired = 0;
+        long acquisitionTime = 0;
+
+        for (ConnectionPoolMetrics pool : driver.metrics().connectionPoolMetrics()) {
+            inUse += pool.inUse();
+            idle += pool.idle();
+            acquired += pool.acquired();
+            acquisitionTime += pool.totalAcquisitionTime();
+        }
+
+        runContext.metric(Counter.of("pool.in.use", inUse));
+        runContext.metric(Counter.of("pool.idle", idle));
+
+        if (acquired > 0) {
+            runContext.metric(Timer.of("pool.acquisition.wait", Duration.ofMillis(acquisitionTime / acquired)));
+        }
+    }
+
+    /**
+     * The configuration of the sessions opened by the task, to be completed with the session specific settings.
+     */
+    protected SessionConfig.Builder sessionConfig(RunContext runContext) throws IllegalVariableEvaluationException {
+        SessionConfig.Builder builder = SessionConfig.builder();
+        runContext.render(database).as(String.class).ifPresent(builder::withDatabase);
+        // session level so tasks differing only by their fetch size share the same pooled driver
+        runContext.render(fetchSize).as(Integer.class).ifPresent(builder::withFetchSize);
+
+        return builder;
+    }
+
+    private String credentialsFingerprint(RunContext runContext) throws IllegalVariableEvaluationException {
+        String raw;
+
+        if (username != null && password != null) {
+            raw = "basic\u0000" + runContext.render(username).as(String.class).orElseThrow() + "\u0000" + runContext.render(password).as(String.class).orElseThrow();
+        } else if (bearerToken != null) {
+            raw = "bearer\u0000" + runContext.render(bearerToken).as(String.class).orElseThrow();
+        } else {
+            raw = "none";
+        }
+
+        return Hashing.sha256().hashString(raw, StandardCharsets.UTF_8).toString();
+    }
+
+    private record DriverOptions(
+        Integer maxConnectionPoolSize,
+        Duration connectionAcquisitionTimeout,
+        Duration maxConnectionLifetime,
+        Duration connectionLivenessCheckTimeout,
+        Boolean encrypted,
+        TrustStrategy trustStrategy,
+        Integer eventLoopThreads
+    ) {
+        Config config() {
+            // needed by the pool metrics
+            Config.ConfigBuilder builder = Config.builder().withDriverMetrics();
+
+            if (maxConnectionPoolSize != null) {
+                builder.withMaxConnectionPoolSize(maxConnectionPoolSize);
+            }
+
+            if (connectionAcquisitionTimeout != null) {
+                builder.withConnectionAcquisitionTimeout(connectionAcquisitionTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            }
+
+            if (maxConnectionLifetime != null) {
+                builder.withMaxConnectionLifetime(maxConnectionLifetime.toMillis(), TimeUnit.MILLISECONDS);
+            }
+
+            if (connectionLivenessCheckTimeout != null) {
+                builder.withConnectionLivenessCheckTimeout(connectionLivenessCheckTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            }
+
+            if (encrypted != null) {
+                if (encrypted) {
+                    builder.withEncryption();
+                } else {
+                    builder.withoutEncryption();
+                }
+            }
+
+            if (trustStrategy != null) {
+                builder.withTrustStrategy(switch (trustStrategy) {
+                    case TRUST_ALL_CERTIFICATES -> Config.TrustStrategy.trustAllCertificates();
+                    case TRUST_SYSTEM_CA_SIGNED_CERTIFICATES -> Config.TrustStrategy.trustSystemCertificates();
+                });
+            }
+
+            if (eventLoopThreads != null) {
+                builder.withEventLoopThreads(eventLoopThreads);
+            }
+
+            return builder.build();
+        }
+    }
 }
@@ -0,0 +1,58 @@
+package io.kestra.plugin.neo4j;
+
+import java.time.Duration;
+
+/**
+ * AIMD controller of the size of the next {@link Batch} chunk: the size grows by a fixed step while chunks are
+ * faster than the target duration, and is halved as soon as one is slower.
+ */
+final class AdaptiveChunkSizer {
+    private final int min;
+    private final int max;
+    private final int step;
+    private final long target;
+    private volatile int size;
+    private int buffered;
+
+    AdaptiveChunkSizer(int initial, int min, int max, Duration target) {
+        if (min < 1) {
+            throw new IllegalArgumentException("The 'minChunk' must be at least 1, got " + min);
+        }
+
+        if (min > max) {
+            throw new IllegalArgumentException("The 'minChunk' can't be above the 'maxChunk', got " + min + " and " + max);
+        }
+
+        this.min = min;
+        this.max = max;
+        this.step = Math.max(1, initial / 10);
+        this.target = target.toNanos();
+        this.size = Math.min(max, Math.max(min, initial));
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Whether the given row closes the current chunk, called for each row in order by the reading thread.
+     */
+    boolean boundary(Object row) {
+        buffered++;
+
+        if (buffered >= size) {
+            buffered = 0;
+            return true;
+        }
+
+        return false;
+    }
+
+    synchronized void observe(Duration duration) {
+        if (duration.toNanos() > target) {
+            size = Math.max(min, size / 2);
+        } else {
+            size = Math.min(max, size + step);
+        }
+    }
+}
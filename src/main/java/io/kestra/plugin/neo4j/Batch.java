@@ -1,26 +1,52 @@
 package io.kestra.plugin.neo4j;
 
+import com.google.common.hash.Hashing;
+import com.google.common.io.CountingInputStream;
+import io.kestra.core.exceptions.IllegalVariableEvaluationException;
+import io.kestra.core.exceptions.ResourceExpiredException;
 import io.kestra.core.models.annotations.Example;
 import io.kestra.core.models.annotations.Plugin;
+import io.kestra.core.models.annotations.PluginProperty;
 import io.kestra.core.models.executions.metrics.Counter;
 import io.kestra.core.models.property.Property;
 import io.kestra.core.models.tasks.RunnableTask;
 import io.kestra.core.runners.RunContext;
 import io.kestra.core.serializers.FileSerde;
+import io.kestra.plugin.neo4j.models.ChunkRetry;
+import io.kestra.plugin.neo4j.models.ChunkSizing;
+import io.kestra.plugin.neo4j.models.ColumnType;
+import io.kestra.plugin.neo4j.models.Compression;
+import io.kestra.plugin.neo4j.models.FileFormat;
+import io.kestra.plugin.neo4j.models.OnError;
+import io.kestra.plugin.neo4j.models.TransactionMode;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
 import org.neo4j.driver.*;
+import org.neo4j.driver.summary.ResultSummary;
 import org.slf4j.Logger;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.function.Tuple2;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @NoArgsConstructor
 @SuperBuilder
@@ -47,8 +73,7 @@ import java.util.concurrent.atomic.AtomicLong;
                     query: |
                        UNWIND $props AS properties
                        MERGE (y:Year {year: properties.year})
-                       MERGE (y)<-[:IN]-(e:Event {id: properties.id})\n
-                       RETURN e.id AS x ORDER BY x\n
+                       MERGE (y)<-[:IN]-(e:Event {id: properties.id})
                     from: "{{ outputs.previous_task_id.uri }}"
                     chunk: 1000
                 """
@@ -56,12 +81,45 @@ import java.util.concurrent.atomic.AtomicLong;
     }
 )
 public class Batch extends AbstractNeo4jConnection implements RunnableTask<Batch.Output>, Neo4jConnectionInterface {
+    private static final Pattern UNWIND = Pattern.compile("\\s*UNWIND\\s+\\$props\\s+AS\\s+(\\w+|`[^`]+`)\\s*", Pattern.CASE_INSENSITIVE);
+
     @NotNull
     @Schema(
         title = "Source file URI"
     )
     private Property<String> from;
 
+    @Schema(
+        title = "The format of the source file",
+        description = "ION a Kestra ion file\n"
+            + "CSV a CSV file with a header line, each row being a map of the header columns\n"
+            + "JSONL a JSON Lines file, one JSON value per line"
+    )
+    @Builder.Default
+    @NotNull
+    private Property<FileFormat> format = Property.of(FileFormat.ION);
+
+    @Schema(
+        title = "The column separator of a CSV source file",
+        description = "Must be a single character."
+    )
+    @Builder.Default
+    @NotNull
+    private Property<String> csvDelimiter = Property.of(",");
+
+    @Schema(
+        title = "The type of the columns of a CSV source file",
+        description = "A map of column name to type, the columns not listed are kept as strings. "
+            + "Dates and datetimes must use the ISO-8601 format, and empty values of typed columns are sent as null."
+    )
+    private Property<Map<String, ColumnType>> csvColumnTypes;
+
+    @Schema(
+        title = "The compression of the source file",
+        description = "If not specified, the compression is detected from the first bytes of the file."
+    )
+    private Property<Compression> compression;
+
     @NotNull
     @Schema(
         title = "Query to execute batch, must use UNWIND",
@@ -78,47 +136,265 @@ public class Batch extends AbstractNeo4jConnection implements RunnableTask<Batch
     @NotNull
     private Property<Integer> chunk = Property.of(1000);
 
+    @Schema(
+        title = "How the size of the chunks is chosen",
+        description = "FIXED always send `chunk` rows\n"
+            + "ADAPTIVE start from `chunk` rows, then grow the next chunk while chunks are faster than `targetChunkDuration` "
+            + "and halve it as soon as one is slower, staying between `minChunk` and `maxChunk` rows"
+    )
+    @Builder.Default
+    @NotNull
+    private Property<ChunkSizing> chunkSizing = Property.of(ChunkSizing.FIXED);
+
+    @Schema(
+        title = "The duration of a chunk targeted by the `ADAPTIVE` chunk sizing"
+    )
+    @Builder.Default
+    @NotNull
+    private Property<Duration> targetChunkDuration = Property.of(Duration.ofSeconds(1));
+
+    @Schema(
+        title = "The minimum size of a chunk with the `ADAPTIVE` chunk sizing"
+    )
+    @Builder.Default
+    @NotNull
+    private Property<Integer> minChunk = Property.of(100);
+
+    @Schema(
+        title = "The maximum size of a chunk with the `ADAPTIVE` chunk sizing",
+        description = "Bounds the memory needed by the server for a single chunk."
+    )
+    @Builder.Default
+    @NotNull
+    private Property<Integer> maxChunk = Property.of(50000);
+
+    @Schema(
+        title = "The number of transactions sent in parallel",
+        description = "With a value above 1, transactions are spread across as many sessions and can't use the "
+            + "`SINGLE` transaction mode: the load is no longer atomic and a failure only rolls back the failing transaction."
+    )
+    @Builder.Default
+    @NotNull
+    private Property<Integer> concurrency = Property.of(1);
+
+    @Schema(
+        title = "How chunks are grouped into transactions",
+        description = "`SINGLE` sends every chunk in one transaction committed at the end of the file, "
+            + "`PER_CHUNK` commits after every chunk and `EVERY_N_CHUNKS` commits after `chunksPerTransaction` chunks, "
+            + "keeping the transaction state on the server bounded whatever the size of the file. "
+            + "`SERVER` lets the server batch the rows: the query must start with `UNWIND $props AS <row>`, "
+            + "the rest of the query being run in `CALL { } IN TRANSACTIONS OF <chunk> ROWS` without its final `RETURN` clause, "
+            + "`IN <concurrency> CONCURRENT TRANSACTIONS` when `concurrency` is above 1 (Neo4j 5.21+), "
+            + "with the rows sent by pages of `serverPageSize` rows in auto-commit queries. "
+            + "It can't be used with `DEAD_LETTER` and ignores `chunkSizing`, `chunkRetry` and `checkpoint`.\n"
+            + "Default to `SINGLE`, or `PER_CHUNK` when `concurrency` is above 1 or `onError` is `DEAD_LETTER`."
+    )
+    private Property<TransactionMode> transactionMode;
+
+    @Schema(
+        title = "The number of chunks committed together",
+        description = "Only used with the `EVERY_N_CHUNKS` transaction mode."
+    )
+    @Builder.Default
+    @NotNull
+    private Property<Integer> chunksPerTransaction = Property.of(10);
+
+    @Schema(
+        title = "The number of rows sent by query",
+        description = "Only used with the `SERVER` transaction mode."
+    )
+    @Builder.Default
+    @NotNull
+    private Property<Integer> serverPageSize = Property.of(100000);
+
+    @Schema(
+        title = "Retry a transaction failing with a transient error, like a deadlock",
+        description = "Only the failing transaction is retried, with an exponential backoff. "
+            + "Not used with the `SINGLE` transaction mode, where the whole file would have to be sent again. "
+            + "If not specified, a failing transaction fails the task."
+    )
+    @PluginProperty
+    private ChunkRetry chunkRetry;
+
+    @Schema(
+        title = "Save the progress of the load to resume it on the next attempt",
+        description = "The count of committed rows is saved in the KV store of the namespace after each transaction, "
+            + "so when the task is retried or the execution restarted, the rows already committed are skipped. "
+            + "Only the rows before the first uncommitted transaction are saved: with a `concurrency` above 1, "
+            + "up to `concurrency - 1` transactions committed after a failed one are replayed by the next attempt, "
+            + "so the query must be idempotent, like a `MERGE` rather than a `CREATE`. "
+            + "The checkpoint is deleted once the load succeed. Not used with the `SINGLE` transaction mode, "
+            + "and the output counters only cover the rows loaded by the current attempt. "
+            + "Can't be used with the `DEAD_LETTER` error handling, as the rows rejected by a failed attempt would be "
+            + "counted as committed while its dead letter file is never stored."
+    )
+    @Builder.Default
+    @NotNull
+    private Property<Boolean> checkpoint = Property.of(false);
+
+    @Schema(
+        title = "What to do with the rows rejected by the server",
+        description = "FAIL fail the task on the first rejected row\n"
+            + "DEAD_LETTER bisect the failing transaction to isolate the rejected rows, like constraint violations or type errors, "
+            + "store them with their error in a file returned as `deadLetterUri`, and keep loading the other rows. "
+            + "`DEAD_LETTER` can't be used with the `SINGLE` transaction mode."
+    )
+    @Builder.Default
+    @NotNull
+    private Property<OnError> onError = Property.of(OnError.FAIL);
+
     @Override
     public Output run(RunContext runContext) throws Exception {
-        try (Driver driver = GraphDatabase.driver(runContext.render(getUrl()).as(String.class).orElse(null), this.credentials(runContext)); Session session = driver.session()) {
-            Logger logger = runContext.logger();
-            String query = runContext.render(this.query).as(String.class).orElseThrow();
-            URI from = new URI(runContext.render(this.from).as(String.class).orElseThrow());
-            Transaction tx = session.beginTransaction();
+        Logger logger = runContext.logger();
+        String query = runContext.render(this.query).as(String.class).orElseThrow();
+        URI from = new URI(runContext.render(this.from).as(String.class).orElseThrow());
+        int chunkValue = runContext.render(this.chunk).as(Integer.class).orElseThrow();
+        int concurrencyValue = runContext.render(this.concurrency).as(Integer.class).orElseThrow();
+
+        OnError onErrorValue = runContext.render(this.onError).as(OnError.class).orElseThrow();
+        TransactionMode mode = this.transactionMode(runContext, concurrencyValue, onErrorValue);
+        boolean checkpointValue = runContext.render(this.checkpoint).as(Boolean.class).orElseThrow();
+
+        if (checkpointValue && onErrorValue == OnError.DEAD_LETTER) {
+            throw new IllegalArgumentException("The checkpoint can't be used with the 'DEAD_LETTER' error handling");
+        }
+
+        String csvDelimiterValue = runContext.render(this.csvDelimiter).as(String.class).orElseThrow();
+        if (csvDelimiterValue.length() != 1) {
+            throw new IllegalArgumentException("The 'csvDelimiter' must be a single character, got '" + csvDelimiterValue + "'");
+        }
+
+        logger.debug("Starting query: {}", query);
+
+        try (
+            Neo4jDriverPool.Lease lease = this.driver(runContext);
+            CountingInputStream storageInput = new CountingInputStream(runContext.storage().getFile(from));
+            BufferedReader inputStream = new BufferedReader(
+                new InputStreamReader(Compressions.decompress(storageInput, runContext.render(this.compression).as(Compression.class).orElse(null))),
+                FileSerde.BUFFER_SIZE
+            );
+            // closed even when the load fails, null without DEAD_LETTER
+            BatchDeadLetter deadLetter = onErrorValue == OnError.DEAD_LETTER ? BatchDeadLetter.create(runContext) : null
+        ) {
+            long started = System.nanoTime();
+            AtomicLong count = new AtomicLong();
+            AtomicLong rowCount = new AtomicLong();
+            LatencyRecorder runLatency = new LatencyRecorder();
+            LatencyRecorder commitLatency = new LatencyRecorder();
+            BatchCheckpoint checkpoint = null;
+            Flux<Object> rows = BatchSource.read(
+                inputStream,
+                runContext.render(this.format).as(FileFormat.class).orElseThrow(),
+                csvDelimiterValue.charAt(0),
+                runContext.render(this.csvColumnTypes).asMap(String.class, ColumnType.class)
+            );
+
+            if (mode != TransactionMode.SINGLE && mode != TransactionMode.SERVER && checkpointValue) {
+                checkpoint = this.checkpoint(runContext, from);
+
+                if (checkpoint.offset() > 0) {
+                    logger.info("Resuming from checkpoint, skipping {} already committed rows", checkpoint.offset());
+                    rows = rows.skip(checkpoint.offset());
+                }
+            }
 
-            logger.debug("Starting query: {}", query);
+            AdaptiveChunkSizer sizer = null;
+            if (mode != TransactionMode.SERVER && runContext.render(this.chunkSizing).as(ChunkSizing.class).orElseThrow() == ChunkSizing.ADAPTIVE) {
+                sizer = new AdaptiveChunkSizer(
+                    chunkValue,
+                    runContext.render(this.minChunk).as(Integer.class).orElseThrow(),
+                    runContext.render(this.maxChunk).as(Integer.class).orElseThrow(),
+                    runContext.render(this.targetChunkDuration).as(Duration.class).orElseThrow()
+                );
+            }
+
+            // the server chunks the pages by itself
+            int bufferSize = mode == TransactionMode.SERVER ? runContext.render(this.serverPageSize).as(Integer.class).orElseThrow() : chunkValue;
+
+            Flux<List<Object>> chunks = (sizer == null ? rows.buffer(bufferSize, bufferSize) : rows.bufferUntil(sizer::boundary))
+                .doOnNext(o -> {
+                    count.incrementAndGet();
+                    rowCount.addAndGet(o.size());
+                });
+
+            SessionConfig sessionConfig = this.sessionConfig(runContext).build();
+
+            BatchCounters counters;
+            if (mode == TransactionMode.SINGLE) {
+                counters = this.runSingleTransaction(lease.driver(), sessionConfig, query, chunks, sizer, runLatency, commitLatency);
+            } else if (mode == TransactionMode.SERVER) {
+                counters = this.runServerTransactions(lease.driver(), sessionConfig, inTransactions(query, chunkValue, concurrencyValue), chunks, runLatency);
+            } else {
+                int chunksPerUnit = mode == TransactionMode.PER_CHUNK ? 1 : runContext.render(this.chunksPerTransaction).as(Integer.class).orElseThrow();
+
+                try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                    BatchWriter writer = this.writer(runContext, lease.driver(), sessionConfig, query, Schedulers.fromExecutorService(executor), deadLetter, sizer, runLatency, commitLatency);
+
+                    counters = this.runUnits(writer, chunks.buffer(chunksPerUnit), concurrencyValue, checkpoint);
+                }
+
+                if (checkpoint != null) {
+                    checkpoint.clear();
+                }
+            }
+
+            runContext.metric(Counter.of("records", count.get()));
+            runContext.metric(Counter.of("updated", counters.updated()));
+            runContext.metric(Counter.of("nodes.created", counters.nodesCreated()));
+            runContext.metric(Counter.of("nodes.deleted", counters.nodesDeleted()));
+            runContext.metric(Counter.of("relationships.created", counters.relationshipsCreated()));
+            runContext.metric(Counter.of("relationships.deleted", counters.relationshipsDeleted()));
+            runContext.metric(Counter.of("properties.set", counters.propertiesSet()));
+            runContext.metric(Counter.of("labels.added", counters.labelsAdded()));
+            runContext.metric(Counter.of("labels.removed", counters.labelsRemoved()));
+            runContext.metric(Counter.of("bytes.read", storageInput.getCount()));
+            runContext.metric(Counter.of("rows.per.second", rowCount.get() * 1_000_000_000D / Math.max(1, System.nanoTime() - started)));
+            runLatency.emit(runContext, "chunk.run");
+            commitLatency.emit(runContext, "commit");
+            this.poolMetrics(runContext, lease.driver());
 
-            try (BufferedReader inputStream = new BufferedReader(new InputStreamReader(runContext.storage().getFile(from)), FileSerde.BUFFER_SIZE)) {
-                Flux<Integer> flowable;
-                AtomicLong count = new AtomicLong();
+            URI deadLetterUri = null;
+            if (deadLetter != null) {
+                runContext.metric(Counter.of("failed.rows", deadLetter.count()));
+                deadLetterUri = deadLetter.store(runContext);
 
-                var chunkValue = runContext.render(this.chunk).as(Integer.class).orElseThrow();
-                flowable = FileSerde.readAll(inputStream)
-                    .buffer(chunkValue, chunkValue)
-                    .map(o -> {
-                        Map<String, Object> params = new HashMap<>();
-                        params.put("props", o);
-                        Result result = tx.run(query, params);
-                        int updated = result.list().size();
-                        count.incrementAndGet();
+                if (deadLetter.count() > 0) {
+                    logger.warn("{} rows were rejected and stored in the dead letter file", deadLetter.count());
+                }
+            }
 
-                        return updated;
-                    });
+            logger.info("Successfully bulk {} queries with {} updated nodes & relationships", count.get(), counters.updated());
 
-                Integer updated = flowable.reduce(Integer::sum).block();
+            return Output
+                .builder()
+                .deadLetterUri(deadLetterUri)
+                .failedRows(deadLetter == null ? null : deadLetter.count())
+                .rowCount(count.get())
+                .updatedCount(counters.updated())
+                .nodesCreated(counters.nodesCreated())
+                .nodesDeleted(counters.nodesDeleted())
+                .relationshipsCreated(counters.relationshipsCreated())
+                .relationshipsDeleted(counters.relationshipsDeleted())
+                .propertiesSet(counters.propertiesSet())
+                .labelsAdded(counters.labelsAdded())
+                .labelsRemoved(counters.labelsRemoved())
+                .build();
+        }
+    }
 
-                runContext.metric(Counter.of("records", count.get()));
-                runContext.metric(Counter.of("updated", updated == null ? 0 : updated));
+    private BatchCounters runSingleTransaction(Driver driver, SessionConfig sessionConfig, String query, Flux<List<Object>> chunks, AdaptiveChunkSizer sizer, LatencyRecorder runLatency, LatencyRecorder commitLatency) {
+        try (Session session = driver.session(sessionConfig)) {
+            Transaction tx = session.beginTransaction();
 
-                logger.info("Successfully bulk {} queries with {} updated rows", count.get(), updated);
+            try {
+                BatchCounters counters = chunks
+                    .map(o -> BatchWriter.run(tx, query, o, sizer, runLatency))
+                    .reduce(BatchCounters.EMPTY, BatchCounters::plus)
+                    .block();
 
-                tx.commit();
+                BatchWriter.commit(tx, commitLatency);
 
-                return Output
-                    .builder()
-                    .rowCount(count.get())
-                    .updatedCount(updated)
-                    .build();
+                return counters;
             } catch (Exception e) {
                 tx.rollback();
                 throw e;
@@ -126,14 +402,244 @@ public class Batch extends AbstractNeo4jConnection implements RunnableTask<Batch
         }
     }
 
+    private BatchCounters runServerTransactions(Driver driver, SessionConfig sessionConfig, String query, Flux<List<Object>> pages, LatencyRecorder runLatency) {
+        // CALL IN TRANSACTIONS needs an auto-commit transaction, pages are sent one after the other in the same session
+        try (Session session = driver.session(sessionConfig)) {
+            return pages
+                .map(page -> Neo4jTracing.span("neo4j.page", span -> {
+                    span.setAttribute("neo4j.batch.rows", page.size());
+
+                    long start = System.nanoTime();
+                    ResultSummary summary = session.run(query, parameters(page)).consume();
+                    runLatency.record(System.nanoTime() - start);
+                    Neo4jTracing.server(span, summary);
+
+                    return BatchCounters.of(summary.counters());
+                }))
+                .reduce(BatchCounters.EMPTY, BatchCounters::plus)
+                .block();
+        }
+    }
+
+    /**
+     * Rewrite a {@code UNWIND $props AS row ...} query so the server commits every {@code rows} rows.
+     * <p>
+     * A query can't end with {@code CALL { } IN TRANSACTIONS} if the subquery returns rows, so the final
+     * {@code RETURN} clause is dropped, the returned rows being discarded anyway.
+     */
+    static String inTransactions(String query, int rows, int concurrency) {
+        Matcher matcher = UNWIND.matcher(query);
+
+        if (!matcher.lookingAt()) {
+            throw new IllegalArgumentException("The 'SERVER' transaction mode needs a query starting with 'UNWIND $props AS <row>'");
+        }
+
+        String row = matcher.group(1);
+
+        return "UNWIND $props AS " + row + "\n"
+            + "CALL {\n"
+            + "WITH " + row + "\n"
+            + withoutReturn(query.substring(matcher.end())) + "\n"
+            + "} IN " + (concurrency > 1 ? concurrency + " CONCURRENT " : "") + "TRANSACTIONS OF " + rows + " ROWS";
+    }
+
+    private static String withoutReturn(String body) {
+        int start = finalReturn(body);
+
+        return (start == -1 ? body : body.substring(0, start)).strip();
+    }
+
+    /**
+     * The position of the last {@code RETURN} clause outside of any subquery, {@code -1} if none.
+     * <p>
+     * Strings, backtick quoted names, comments, property keys, labels and parameters are skipped, so only the
+     * {@code RETURN} keyword is found.
+     */
+    private static int finalReturn(String query) {
+        int found = -1;
+        int depth = 0;
+        char previous = ' ';
+        int i = 0;
+
+        while (i < query.length()) {
+            char c = query.charAt(i);
+
+            if (c == '\'' || c == '"') {
+                i = closing(query, i + 1, c);
+            } else if (c == '`') {
+                // a doubled backtick is an escaped one
+                do {
+                    i = query.indexOf('`', i + 1);
+                    i = i == -1 ? query.length() : i + 1;
+                } while (i < query.length() && query.charAt(i) == '`');
+            } else if (query.startsWith("//", i)) {
+                int end = query.indexOf('\n', i);
+                i = end == -1 ? query.length() : end + 1;
+                continue;
+            } else if (query.startsWith("/*", i)) {
+                int end = query.indexOf("*/", i + 2);
+                i = end == -1 ? query.length() : end + 2;
+                continue;
+            } else if (Character.isLetter(c) || c == '_') {
+                int end = i;
+                while (end < query.length() && (Character.isLetterOrDigit(query.charAt(end)) || query.charAt(end) == '_')) {
+                    end++;
+                }
+
+                boolean name = previous == '.' || previous == ':' || previous == '$';
+                if (!name && depth == 0 && end - i == 6 && query.regionMatches(true, i, "RETURN", 0, 6)) {
+                    found = i;
+                }
+
+                i = end;
+            } else {
+                if (c == '{') {
+                    depth++;
+                } else if (c == '}') {
+                    depth--;
+                }
+
+                i++;
+            }
+
+            if (!Character.isWhitespace(c)) {
+                previous = c;
+            }
+        }
+
+        return found;
+    }
+
+    private static int closing(String query, int from, char quote) {
+        for (int i = from; i < query.length(); i++) {
+            char c = query.charAt(i);
+
+            if (c == '\\') {
+                i++;
+            } else if (c == quote) {
+                return i + 1;
+            }
+        }
+
+        return query.length();
+    }
+
+    private TransactionMode transactionMode(RunContext runContext, int concurrency, OnError onError) throws IllegalVariableEvaluationException {
+        TransactionMode mode = runContext.render(this.transactionMode).as(TransactionMode.class)
+            .orElse(concurrency > 1 || onError == OnError.DEAD_LETTER ? TransactionMode.PER_CHUNK : TransactionMode.SINGLE);
+
+        if (mode == TransactionMode.SINGLE && concurrency > 1) {
+            throw new IllegalArgumentException("The 'SINGLE' transaction mode can't be used with a concurrency above 1");
+        }
+
+        if ((mode == TransactionMode.SINGLE || mode == TransactionMode.SERVER) && onError == OnError.DEAD_LETTER) {
+            throw new IllegalArgumentException("The '" + mode + "' transaction mode can't be used with the 'DEAD_LETTER' error handling");
+        }
+
+        return mode;
+    }
+
+    private BatchWriter writer(RunContext runContext, Driver driver, SessionConfig sessionConfig, String query, Scheduler scheduler, BatchDeadLetter deadLetter, AdaptiveChunkSizer sizer, LatencyRecorder runLatency, LatencyRecorder commitLatency) throws IllegalVariableEvaluationException {
+        BatchWriter.BatchWriterBuilder writer = BatchWriter.builder()
+            .driver(driver)
+            .sessionConfig(sessionConfig)
+            .query(query)
+            .scheduler(scheduler)
+            .deadLetter(deadLetter)
+            .sizer(sizer)
+            .runLatency(runLatency)
+            .commitLatency(commitLatency)
+            .tracing(Neo4jTracing.current());
+
+        if (chunkRetry != null) {
+            writer
+                .retry(BatchWriter.retry(
+                    runContext.render(chunkRetry.getMaxAttempts()).as(Integer.class).orElseThrow(),
+                    runContext.render(chunkRetry.getInitialDelay()).as(Duration.class).orElseThrow(),
+                    runContext.render(chunkRetry.getMaxDelay()).as(Duration.class).orElseThrow(),
+                    runContext.render(chunkRetry.getJitter()).as(Double.class).orElseThrow(),
+                    runContext.logger()
+                ))
+                .splitOnFailure(runContext.render(chunkRetry.getSplitOnFailure()).as(Boolean.class).orElseThrow());
+        }
+
+        return writer.build();
+    }
+
+    private BatchCheckpoint checkpoint(RunContext runContext, URI from) throws IllegalVariableEvaluationException, IOException, ResourceExpiredException {
+        RunContext.FlowInfo flowInfo = runContext.flowInfo();
+        String taskRunId = runContext.render("{{ taskrun.id }}");
+
+        String key = "neo4j_batch_" + Hashing.sha256()
+            .hashString(String.join("\u0000", flowInfo.id(), this.getId(), taskRunId, from.toString()), StandardCharsets.UTF_8);
+
+        return BatchCheckpoint.load(runContext.namespaceKv(flowInfo.namespace()), key);
+    }
+
+    private BatchCounters runUnits(BatchWriter writer, Flux<List<List<Object>>> units, int concurrency, BatchCheckpoint checkpoint) {
+        Function<Tuple2<Long, List<List<Object>>>, Mono<BatchCounters>> write = indexed -> writer
+            .write(indexed.getT1(), indexed.getT2())
+            .doOnNext(counters -> {
+                if (checkpoint != null) {
+                    checkpoint.committed(indexed.getT1(), indexed.getT2().stream().mapToLong(List::size).sum());
+                }
+            });
+
+        // transactions commit in the order they complete, the counters being summed
+        return units.index()
+            .flatMap(write, concurrency)
+            .reduce(BatchCounters.EMPTY, BatchCounters::plus)
+            .block();
+    }
+
+    static Map<String, Object> parameters(List<Object> chunk) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("props", chunk);
+
+        return params;
+    }
+
     @Builder
     @Getter
     public static class Output implements io.kestra.core.models.tasks.Output {
         @Schema(title = "The count of executed queries")
         private final Long rowCount;
 
-        @Schema(title = "The updated rows count")
-        private final Integer updatedCount;
+        @Schema(title = "The count of nodes and relationships created or deleted")
+        private final Long updatedCount;
+
+        @Schema(title = "The count of nodes created")
+        private final Long nodesCreated;
+
+        @Schema(title = "The count of nodes deleted")
+        private final Long nodesDeleted;
+
+        @Schema(title = "The count of relationships created")
+        private final Long relationshipsCreated;
+
+        @Schema(title = "The count of relationships deleted")
+        private final Long relationshipsDeleted;
+
+        @Schema(title = "The count of properties set")
+        private final Long propertiesSet;
+
+        @Schema(title = "The count of labels added to nodes")
+        private final Long labelsAdded;
+
+        @Schema(title = "The count of labels removed from nodes")
+        private final Long labelsRemoved;
+
+        @Schema(
+            title = "The uri of the rejected rows",
+            description = "Only populated if using `DEAD_LETTER` and some rows were rejected."
+        )
+        private final URI deadLetterUri;
+
+        @Schema(
+            title = "The count of rejected rows",
+            description = "Only populated if using `DEAD_LETTER`."
+        )
+        private final Long failedRows;
     }
 
 }
@@ -0,0 +1,77 @@
+package io.kestra.plugin.neo4j;
+
+import io.kestra.core.exceptions.ResourceExpiredException;
+import io.kestra.core.storages.kv.KVMetadata;
+import io.kestra.core.storages.kv.KVStore;
+import io.kestra.core.storages.kv.KVValue;
+import io.kestra.core.storages.kv.KVValueAndMetadata;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Count of source rows committed by a {@link Batch}, persisted in the KV store so a new attempt can skip them.
+ * <p>
+ * Transactions can complete out of order, only the rows of the contiguous committed prefix are saved, so the
+ * transactions committed after a failed one are replayed by the next attempt.
+ */
+final class BatchCheckpoint {
+    static final Duration TTL = Duration.ofDays(7);
+
+    private final KVStore store;
+    private final String key;
+    private final long offset;
+    private final Map<Long, Long> completed = new HashMap<>();
+    private long committed;
+    private long next;
+
+    private BatchCheckpoint(KVStore store, String key, long offset) {
+        this.store = store;
+        this.key = key;
+        this.offset = offset;
+        this.committed = offset;
+    }
+
+    static BatchCheckpoint load(KVStore store, String key) throws IOException, ResourceExpiredException {
+        Optional<KVValue> value = store.getValue(key);
+
+        return new BatchCheckpoint(store, key, value.map(v -> ((Number) v.value()).longValue()).orElse(0L));
+    }
+
+    /**
+     * The count of rows committed by previous attempts.
+     */
+    long offset() {
+        return offset;
+    }
+
+    /**
+     * Mark the transaction at the given index, counted from the offset, as committed.
+     */
+    synchronized void committed(long index, long rows) {
+        completed.put(index, rows);
+
+        boolean advanced = false;
+        while (completed.containsKey(next)) {
+            committed += completed.remove(next);
+            next++;
+            advanced = true;
+        }
+
+        if (advanced) {
+            try {
+                store.put(key, new KVValueAndMetadata(new KVMetadata(TTL), committed));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    void clear() throws IOException {
+        store.delete(key);
+    }
+}
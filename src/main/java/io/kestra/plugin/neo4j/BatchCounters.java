@@ -0,0 +1,49 @@
+package io.kestra.plugin.neo4j;
+
+import org.neo4j.driver.summary.SummaryCounters;
+
+/**
+ * Sum of the {@link SummaryCounters} reported by the server for every chunk of a {@link Batch}.
+ */
+record BatchCounters(
+    long nodesCreated,
+    long nodesDeleted,
+    long relationshipsCreated,
+    long relationshipsDeleted,
+    long propertiesSet,
+    long labelsAdded,
+    long labelsRemoved
+) {
+    static final BatchCounters EMPTY = new BatchCounters(0, 0, 0, 0, 0, 0, 0);
+
+    static BatchCounters of(SummaryCounters counters) {
+        return new BatchCounters(
+            counters.nodesCreated(),
+            counters.nodesDeleted(),
+            counters.relationshipsCreated(),
+            counters.relationshipsDeleted(),
+            counters.propertiesSet(),
+            counters.labelsAdded(),
+            counters.labelsRemoved()
+        );
+    }
+
+    BatchCounters plus(BatchCounters other) {
+        return new BatchCounters(
+            nodesCreated + other.nodesCreated,
+            nodesDeleted + other.nodesDeleted,
+            relationshipsCreated + other.relationshipsCreated,
+            relationshipsDeleted + other.relationshipsDeleted,
+            propertiesSet + other.propertiesSet,
+            labelsAdded + other.labelsAdded,
+            labelsRemoved + other.labelsRemoved
+        );
+    }
+
+    /**
+     * The count of nodes and relationships created or deleted.
+     */
+    long updated() {
+        return nodesCreated + nodesDeleted + relationshipsCreated + relationshipsDeleted;
+    }
+}
@@ -0,0 +1,86 @@
+package io.kestra.plugin.neo4j;
+
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.FileSerde;
+import org.neo4j.driver.exceptions.Neo4jException;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Ion file of the rows rejected by the server during a {@link Batch}, each with the error that rejected it.
+ */
+final class BatchDeadLetter implements Closeable {
+    // errors caused by the data of a row, any other error is caused by the query and would reject every row
+    private static final Set<String> REJECTIONS = Set.of(
+        "Neo.ClientError.Statement.TypeError",
+        "Neo.ClientError.Statement.ArgumentError",
+        "Neo.ClientError.Statement.ArithmeticError",
+        "Neo.ClientError.Statement.SemanticError"
+    );
+
+    private final File file;
+    private final OutputStream output;
+    private long count;
+
+    private BatchDeadLetter(File file) throws IOException {
+        this.file = file;
+        this.output = new BufferedOutputStream(new FileOutputStream(file), FileSerde.BUFFER_SIZE);
+    }
+
+    static BatchDeadLetter create(RunContext runContext) throws IOException {
+        return new BatchDeadLetter(runContext.workingDir().createTempFile(".ion").toFile());
+    }
+
+    static boolean isRejection(Throwable throwable) {
+        return throwable instanceof Neo4jException exception &&
+            exception.code() != null &&
+            (exception.code().startsWith("Neo.ClientError.Schema.") || REJECTIONS.contains(exception.code()));
+    }
+
+    synchronized void write(Object row, Throwable throwable) {
+        Map<String, Object> rejected = new LinkedHashMap<>();
+        rejected.put("row", row);
+        rejected.put("code", ((Neo4jException) throwable).code());
+        rejected.put("error", throwable.getMessage());
+
+        try {
+            FileSerde.write(output, rejected);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        count++;
+    }
+
+    synchronized long count() {
+        return count;
+    }
+
+    /**
+     * Upload the rejected rows to the internal storage, returns {@code null} if no rows were rejected.
+     */
+    synchronized URI store(RunContext runContext) throws IOException {
+        this.close();
+
+        if (count == 0) {
+            return null;
+        }
+
+        return runContext.storage().putFile(file);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        output.close();
+    }
+}
@@ -0,0 +1,86 @@
+package io.kestra.plugin.neo4j;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import io.kestra.core.serializers.FileSerde;
+import io.kestra.core.serializers.JacksonMapper;
+import io.kestra.plugin.neo4j.models.ColumnType;
+import io.kestra.plugin.neo4j.models.FileFormat;
+import reactor.core.publisher.Flux;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Stream the rows of a {@link Batch} source file, one row at a time whatever its format.
+ */
+final class BatchSource {
+    private static final CsvMapper CSV_MAPPER = new CsvMapper();
+
+    private BatchSource() {
+    }
+
+    static Flux<Object> read(BufferedReader reader, FileFormat format, char csvDelimiter, Map<String, ColumnType> csvColumnTypes) throws IOException {
+        switch (format) {
+            case CSV: {
+                CsvSchema schema = CsvSchema.emptySchema()
+                    .withHeader()
+                    .withColumnSeparator(csvDelimiter);
+
+                MappingIterator<Map<String, String>> rows = CSV_MAPPER
+                    .readerFor(Map.class)
+                    .with(schema)
+                    .readValues(reader);
+
+                return Flux.fromIterable(() -> rows)
+                    .map(row -> coerce(row, csvColumnTypes));
+            }
+            case JSONL: {
+                MappingIterator<Object> rows = JacksonMapper.ofJson()
+                    .readerFor(Object.class)
+                    .readValues(reader);
+
+                return Flux.fromIterable(() -> rows);
+            }
+            default:
+                return FileSerde.readAll(reader);
+        }
+    }
+
+    private static Object coerce(Map<String, String> row, Map<String, ColumnType> types) {
+        if (types.isEmpty()) {
+            return row;
+        }
+
+        Map<String, Object> coerced = new LinkedHashMap<>(row.size());
+        row.forEach((column, value) -> coerced.put(column, coerce(value, types.getOrDefault(column, ColumnType.STRING))));
+
+        return coerced;
+    }
+
+    private static Object coerce(String value, ColumnType type) {
+        if (type == ColumnType.STRING) {
+            return value;
+        }
+
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+
+        return switch (type) {
+            case INTEGER -> Long.parseLong(value);
+            case FLOAT -> Double.parseDouble(value);
+            case BOOLEAN -> Boolean.parseBoolean(value);
+            case DATE -> LocalDate.parse(value);
+            case LOCAL_DATETIME -> LocalDateTime.parse(value);
+            case DATETIME -> ZonedDateTime.parse(value);
+            default -> value;
+        };
+    }
+}
@@ -0,0 +1,161 @@
+package io.kestra.plugin.neo4j;
+
+import lombok.Builder;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.SessionConfig;
+import org.neo4j.driver.Transaction;
+import org.neo4j.driver.exceptions.RetryableException;
+import org.neo4j.driver.summary.ResultSummary;
+import org.slf4j.Logger;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Commit the transactions of a {@link Batch}, each transaction being a list of chunks sent with the same query.
+ */
+@Builder
+final class BatchWriter {
+    private final Driver driver;
+    private final SessionConfig sessionConfig;
+    private final String query;
+    private final Scheduler scheduler;
+    private final Retry retry;
+    private final boolean splitOnFailure;
+    private final BatchDeadLetter deadLetter;
+    private final AdaptiveChunkSizer sizer;
+    private final LatencyRecorder runLatency;
+    private final LatencyRecorder commitLatency;
+    private final Object tracing;
+
+    /**
+     * Write the unit of the given index, the index being only used to trace the transactions.
+     */
+    Mono<BatchCounters> write(long index, List<List<Object>> unit) {
+        Mono<BatchCounters> write = Mono
+            .fromCallable(() -> this.commit(index, unit))
+            .subscribeOn(scheduler);
+
+        if (retry != null) {
+            write = write.retryWhen(retry);
+        }
+
+        if (splitOnFailure && splittable(unit)) {
+            write = write.onErrorResume(
+                RetryableException.class::isInstance,
+                e -> Flux.fromIterable(halves(unit))
+                    .concatMap(half -> this.write(index, half))
+                    .reduce(BatchCounters.EMPTY, BatchCounters::plus)
+            );
+        }
+
+        if (deadLetter != null) {
+            write = write.onErrorResume(BatchDeadLetter::isRejection, e -> this.reject(index, unit, e));
+        }
+
+        return write;
+    }
+
+    /**
+     * Bisect a rejected transaction until the rows rejected by the server are isolated in the dead letter.
+     */
+    private Mono<BatchCounters> reject(long index, List<List<Object>> unit, Throwable throwable) {
+        if (splittable(unit)) {
+            return Flux.fromIterable(halves(unit))
+                .concatMap(half -> this.write(index, half))
+                .reduce(BatchCounters.EMPTY, BatchCounters::plus);
+        }
+
+        deadLetter.write(unit.getFirst().getFirst(), throwable);
+
+        return Mono.just(BatchCounters.EMPTY);
+    }
+
+    private BatchCounters commit(long index, List<List<Object>> unit) {
+        return Neo4jTracing.span("neo4j.transaction", tracing, span -> {
+            span.setAttribute("neo4j.batch.unit", index);
+            span.setAttribute("neo4j.batch.rows", unit.stream().mapToLong(List::size).sum());
+
+            try (Session session = driver.session(sessionConfig); Transaction tx = session.beginTransaction()) {
+                BatchCounters counters = BatchCounters.EMPTY;
+                for (List<Object> chunk : unit) {
+                    counters = counters.plus(run(tx, query, chunk, sizer, runLatency));
+                }
+
+                commit(tx, commitLatency);
+
+                return counters;
+            }
+        });
+    }
+
+    static void commit(Transaction tx, LatencyRecorder latency) {
+        Neo4jTracing.span("neo4j.commit", span -> {
+            long start = System.nanoTime();
+            tx.commit();
+            latency.record(System.nanoTime() - start);
+
+            return null;
+        });
+    }
+
+    /**
+     * Send a chunk in the given transaction, reporting its duration to the latency recorder and to the sizer if any.
+     */
+    static BatchCounters run(Transaction tx, String query, List<Object> chunk, AdaptiveChunkSizer sizer, LatencyRecorder latency) {
+        return Neo4jTracing.span("neo4j.chunk", span -> {
+            span.setAttribute("neo4j.batch.rows", chunk.size());
+
+            long start = System.nanoTime();
+            ResultSummary summary = tx.run(query, Batch.parameters(chunk)).consume();
+            long duration = System.nanoTime() - start;
+
+            latency.record(duration);
+            Neo4jTracing.server(span, summary);
+
+            if (sizer != null) {
+                sizer.observe(Duration.ofNanos(duration));
+            }
+
+            return BatchCounters.of(summary.counters());
+        });
+    }
+
+    /**
+     * Retry a transaction failing with a transient error until {@code maxAttempts} attempts, rethrowing the last error.
+     */
+    static Retry retry(int maxAttempts, Duration initialDelay, Duration maxDelay, double jitter, Logger logger) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("The 'maxAttempts' of 'chunkRetry' must be at least 1, got " + maxAttempts);
+        }
+
+        return Retry.backoff(maxAttempts - 1, initialDelay)
+            .maxBackoff(maxDelay)
+            .jitter(jitter)
+            .filter(RetryableException.class::isInstance)
+            .doBeforeRetry(signal -> logger.warn("Retrying transaction after attempt {} failed: {}", signal.totalRetries() + 1, signal.failure().getMessage()))
+            .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    static boolean splittable(List<List<Object>> unit) {
+        return unit.size() > 1 || unit.getFirst().size() > 1;
+    }
+
+    static List<List<List<Object>>> halves(List<List<Object>> unit) {
+        if (unit.size() > 1) {
+            int middle = unit.size() / 2;
+
+            return List.of(unit.subList(0, middle), unit.subList(middle, unit.size()));
+        }
+
+        List<Object> chunk = unit.getFirst();
+        int middle = chunk.size() / 2;
+
+        return List.of(List.of(chunk.subList(0, middle)), List.of(chunk.subList(middle, chunk.size())));
+    }
+}
@@ -0,0 +1,78 @@
+package io.kestra.plugin.neo4j;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+import io.kestra.plugin.neo4j.models.Compression;
+import net.jpountz.lz4.LZ4FrameInputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streaming compression of the files read and written by the Neo4j tasks.
+ */
+final class Compressions {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private Compressions() {
+    }
+
+    static OutputStream compress(OutputStream output, Compression compression) throws IOException {
+        return switch (compression) {
+            case GZIP -> new GZIPOutputStream(output, BUFFER_SIZE);
+            case ZSTD -> new ZstdOutputStream(output);
+            case LZ4 -> new LZ4FrameOutputStream(output);
+            case NONE -> output;
+        };
+    }
+
+    /**
+     * Decompress the input, detecting the compression from its magic bytes if {@code compression} is null.
+     */
+    static InputStream decompress(InputStream input, Compression compression) throws IOException {
+        InputStream buffered = input.markSupported() ? input : new BufferedInputStream(input, BUFFER_SIZE);
+
+        return switch (compression == null ? detect(buffered) : compression) {
+            case GZIP -> new GZIPInputStream(buffered, BUFFER_SIZE);
+            case ZSTD -> new ZstdInputStream(buffered);
+            case LZ4 -> new LZ4FrameInputStream(buffered);
+            case NONE -> buffered;
+        };
+    }
+
+    static String extension(Compression compression) {
+        return switch (compression) {
+            case GZIP -> ".gz";
+            case ZSTD -> ".zst";
+            case LZ4 -> ".lz4";
+            case NONE -> "";
+        };
+    }
+
+    static Compression detect(InputStream input) throws IOException {
+        byte[] magic = new byte[4];
+
+        input.mark(magic.length);
+        int read = input.readNBytes(magic, 0, magic.length);
+        input.reset();
+
+        if (read >= 2 && (magic[0] & 0xff) == 0x1f && (magic[1] & 0xff) == 0x8b) {
+            return Compression.GZIP;
+        }
+
+        if (read == 4 && (magic[0] & 0xff) == 0x28 && (magic[1] & 0xff) == 0xb5 && (magic[2] & 0xff) == 0x2f && (magic[3] & 0xff) == 0xfd) {
+            return Compression.ZSTD;
+        }
+
+        if (read == 4 && (magic[0] & 0xff) == 0x04 && (magic[1] & 0xff) == 0x22 && (magic[2] & 0xff) == 0x4d && (magic[3] & 0xff) == 0x18) {
+            return Compression.LZ4;
+        }
+
+        return Compression.NONE;
+    }
+}
@@ -0,0 +1,49 @@
+package io.kestra.plugin.neo4j;
+
+import io.kestra.core.models.executions.metrics.Timer;
+import io.kestra.core.runners.RunContext;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Record the latencies of a repeated operation, emitted as percentile {@link Timer} once the task is done rather than
+ * one metric per operation.
+ */
+final class LatencyRecorder {
+    private long[] latencies = new long[64];
+    private int count;
+
+    synchronized void record(long nanos) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+
+        latencies[count++] = nanos;
+    }
+
+    /**
+     * Emit the {@code p50}, {@code p95}, {@code p99} and {@code max} timers of the given name, nothing if no latency
+     * was recorded.
+     */
+    synchronized void emit(RunContext runContext, String name) {
+        if (count == 0) {
+            return;
+        }
+
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+
+        runContext.metric(Timer.of(name + ".p50", Duration.ofNanos(percentile(sorted, 0.50))));
+        runContext.metric(Timer.of(name + ".p95", Duration.ofNanos(percentile(sorted, 0.95))));
+        runContext.metric(Timer.of(name + ".p99", Duration.ofNanos(percentile(sorted, 0.99))));
+        runContext.metric(Timer.of(name + ".max", Duration.ofNanos(sorted[sorted.length - 1])));
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        // nearest rank
+        int rank = (int) Math.ceil(percentile * sorted.length);
+
+        return sorted[Math.max(0, rank - 1)];
+    }
+}
@@ -0,0 +1,180 @@
+package io.kestra.plugin.neo4j;
+
+import org.neo4j.driver.Driver;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Worker-wide cache of Neo4j {@link Driver}, shared by every task execution using the same connection.
+ * <p>
+ * Drivers are reference counted: a driver is only closed once no task holds it anymore and it stayed idle for
+ * {@link #IDLE_TIMEOUT}. The cache holds at most {@link #MAX_DRIVERS} drivers, above that the least recently used
+ * idle driver is evicted, or an uncached driver is handed out if all of them are in use.
+ */
+final class Neo4jDriverPool {
+    static final int MAX_DRIVERS = 16;
+    static final Duration IDLE_TIMEOUT = Duration.ofMinutes(5);
+
+    private static final Neo4jDriverPool INSTANCE = new Neo4jDriverPool(MAX_DRIVERS, IDLE_TIMEOUT);
+
+    private final int maxDrivers;
+    private final Duration idleTimeout;
+    private final Map<Key, Entry> entries = new HashMap<>();
+    private ScheduledExecutorService evictor;
+
+    Neo4jDriverPool(int maxDrivers, Duration idleTimeout) {
+        this.maxDrivers = maxDrivers;
+        this.idleTimeout = idleTimeout;
+    }
+
+    static Neo4jDriverPool instance() {
+        return INSTANCE;
+    }
+
+    Lease acquire(Key key, Supplier<Driver> factory) {
+        Lease lease;
+        Optional<Entry> evicted = Optional.empty();
+
+        synchronized (this) {
+            Entry entry = entries.get(key);
+
+            if (entry == null && entries.size() >= maxDrivers) {
+                evicted = this.evictLeastRecentlyUsed();
+            }
+
+            if (entry == null && entries.size() >= maxDrivers) {
+                // every cached driver is busy, don't grow above the cap and use a driver owned by this lease only
+                lease = new Lease(this, null, factory.get());
+            } else {
+                if (entry == null) {
+                    entry = new Entry(key, factory.get());
+                    entries.put(key, entry);
+                    this.scheduleEviction();
+                }
+
+                entry.references++;
+                lease = new Lease(this, entry, entry.driver);
+            }
+        }
+
+        // closing a driver waits for its connections and event loops, don't block the other acquisitions
+        evicted.ifPresent(entry -> entry.driver.close());
+
+        return lease;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    void evictIdle() {
+        long now = System.nanoTime();
+        List<Entry> evicted = new ArrayList<>();
+
+        synchronized (this) {
+            entries.values().removeIf(entry -> {
+                if (entry.references == 0 && now - entry.lastReleased >= idleTimeout.toNanos()) {
+                    evicted.add(entry);
+                    return true;
+                }
+
+                return false;
+            });
+        }
+
+        evicted.forEach(entry -> entry.driver.close());
+    }
+
+    private synchronized void release(Entry entry) {
+        entry.references--;
+        entry.lastReleased = System.nanoTime();
+    }
+
+    /**
+     * Remove the least recently used idle entry, to be closed by the caller once the lock is released.
+     */
+    private Optional<Entry> evictLeastRecentlyUsed() {
+        Optional<Entry> candidate = entries.values()
+            .stream()
+            .filter(entry -> entry.references == 0)
+            .min((a, b) -> Long.compare(a.lastReleased, b.lastReleased));
+
+        candidate.ifPresent(entry -> entries.remove(entry.key));
+
+        return candidate;
+    }
+
+    private void scheduleEviction() {
+        if (evictor != null) {
+            return;
+        }
+
+        evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "neo4j-driver-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long period = Math.max(1, idleTimeout.toMillis() / 2);
+        evictor.scheduleAtFixedRate(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Identity of a cached driver: the rendered url, a fingerprint of the credentials and the driver configuration.
+     */
+    record Key(String url, String credentials, String config) {
+    }
+
+    private static final class Entry {
+        private final Key key;
+        private final Driver driver;
+        private int references;
+        private long lastReleased = System.nanoTime();
+
+        private Entry(Key key, Driver driver) {
+            this.key = key;
+            this.driver = driver;
+        }
+    }
+
+    static final class Lease implements AutoCloseable {
+        private final Neo4jDriverPool pool;
+        private final Entry entry;
+        private final Driver driver;
+        private boolean closed;
+
+        private Lease(Neo4jDriverPool pool, Entry entry, Driver driver) {
+            this.pool = pool;
+            this.entry = entry;
+            this.driver = driver;
+        }
+
+        Driver driver() {
+            return driver;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+
+            if (entry == null) {
+                driver.close();
+            } else {
+                pool.release(entry);
+            }
+        }
+    }
+}
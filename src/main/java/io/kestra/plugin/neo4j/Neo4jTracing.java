@@ -0,0 +1,81 @@
+package io.kestra.plugin.neo4j;
+
+import org.neo4j.driver.summary.ResultSummary;
+
+/**
+ * OpenTelemetry spans of the tasks, children of the span of the task run when the worker is traced and no-op otherwise.
+ * <p>
+ * The OpenTelemetry API is provided by the worker, so it is only referenced from {@link OpenTelemetryTracing}, loaded
+ * when the API is on the classpath; with older workers that don't ship it, spans are no-op.
+ * <p>
+ * Work running on other threads than the task one must be given the context captured by {@link #current()} on the
+ * task thread to stay in the same trace.
+ */
+final class Neo4jTracing {
+    private static final boolean ENABLED = present();
+
+    private static final TraceSpan NOOP = new TraceSpan() {
+        @Override
+        public void setAttribute(String key, String value) {
+        }
+
+        @Override
+        public void setAttribute(String key, long value) {
+        }
+    };
+
+    private Neo4jTracing() {
+    }
+
+    /**
+     * The current tracing context, opaque to the callers and {@code null} when the worker isn't traced.
+     */
+    static Object current() {
+        return ENABLED ? OpenTelemetryTracing.current() : null;
+    }
+
+    static <T, E extends Exception> T span(String name, Traced<T, E> traced) throws E {
+        return span(name, current(), traced);
+    }
+
+    static <T, E extends Exception> T span(String name, Object parent, Traced<T, E> traced) throws E {
+        if (!ENABLED) {
+            return traced.call(NOOP);
+        }
+
+        return OpenTelemetryTracing.span(name, parent, traced);
+    }
+
+    /**
+     * Add the server that ran a query and its database to the span.
+     */
+    static void server(TraceSpan span, ResultSummary summary) {
+        if (summary.server() != null) {
+            span.setAttribute("server.address", summary.server().address());
+        }
+
+        if (summary.database() != null && summary.database().name() != null) {
+            span.setAttribute("db.name", summary.database().name());
+        }
+    }
+
+    private static boolean present() {
+        try {
+            Class.forName("io.opentelemetry.api.GlobalOpenTelemetry", false, Neo4jTracing.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    interface TraceSpan {
+        void setAttribute(String key, String value);
+
+        void setAttribute(String key, long value);
+    }
+
+    @FunctionalInterface
+    interface Traced<T, E extends Exception> {
+        T call(TraceSpan span) throws E;
+    }
+}
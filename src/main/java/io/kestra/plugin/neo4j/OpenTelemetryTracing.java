@@ -0,0 +1,51 @@
+package io.kestra.plugin.neo4j;
+
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+
+/**
+ * The {@link Neo4jTracing} spans backed by the OpenTelemetry API, only loaded when the API is on the classpath.
+ */
+final class OpenTelemetryTracing {
+    private static final Tracer TRACER = GlobalOpenTelemetry.getTracer("io.kestra.plugin.neo4j");
+
+    private OpenTelemetryTracing() {
+    }
+
+    static Object current() {
+        return Context.current();
+    }
+
+    static <T, E extends Exception> T span(String name, Object parent, Neo4jTracing.Traced<T, E> traced) throws E {
+        Span span = TRACER.spanBuilder(name)
+            .setParent(parent instanceof Context context ? context : Context.current())
+            .setSpanKind(SpanKind.CLIENT)
+            .setAttribute("db.system", "neo4j")
+            .startSpan();
+
+        try (Scope ignored = span.makeCurrent()) {
+            return traced.call(new Neo4jTracing.TraceSpan() {
+                @Override
+                public void setAttribute(String key, String value) {
+                    span.setAttribute(key, value);
+                }
+
+                @Override
+                public void setAttribute(String key, long value) {
+                    span.setAttribute(key, value);
+                }
+            });
+        } catch (Exception e) {
+            span.recordException(e);
+            span.setStatus(StatusCode.ERROR);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+}
@@ -1,36 +1,62 @@
 package io.kestra.plugin.neo4j;
 
 import com.google.common.collect.ImmutableMap;
+import io.kestra.core.exceptions.IllegalVariableEvaluationException;
 import io.kestra.core.models.annotations.Example;
 import io.kestra.core.models.annotations.Plugin;
 import io.kestra.core.models.executions.metrics.Counter;
+import io.kestra.core.models.executions.metrics.Timer;
 import io.kestra.core.models.property.Property;
 import io.kestra.core.models.tasks.RunnableTask;
 import io.kestra.core.runners.RunContext;
 import io.kestra.core.serializers.FileSerde;
+import io.kestra.core.serializers.JacksonMapper;
+import io.kestra.plugin.neo4j.models.AccessMode;
+import io.kestra.plugin.neo4j.models.Compression;
+import io.kestra.plugin.neo4j.models.FetchOverflow;
+import io.kestra.plugin.neo4j.models.FileFormat;
+import io.kestra.plugin.neo4j.models.PartitionOutput;
+import io.kestra.plugin.neo4j.models.ProfileMode;
 import io.kestra.plugin.neo4j.models.StoreType;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
 import org.neo4j.driver.Record;
-import org.neo4j.driver.Value;
 import org.neo4j.driver.*;
+import org.neo4j.driver.summary.Plan;
+import org.neo4j.driver.summary.QueryType;
+import org.neo4j.driver.summary.ResultSummary;
+import org.neo4j.driver.types.TypeSystem;
 import org.slf4j.Logger;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.FluxSink;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
-import java.io.BufferedWriter;
+import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.nio.file.Files;
+import java.time.Duration;
 import java.util.AbstractMap;
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
+import java.util.stream.Stream;
 
 @NoArgsConstructor
 @SuperBuilder
@@ -48,6 +74,10 @@ import java.util.stream.StreamSupport;
                 id: neo4j_query
                 namespace: company.team
 
+                inputs:
+                  - id: name
+                    type: STRING
+
                 tasks:
                   - id: query
                     type: io.kestra.plugin.neo4j.Query
@@ -56,7 +86,10 @@ import java.util.stream.StreamSupport;
                     password: "{{ password }}"
                     query: |
                         MATCH (p:Person)
+                        WHERE p.name = $name
                         RETURN p
+                    parameters:
+                      name: "{{ inputs.name }}"
                     storeType: FETCH
             """
         )
@@ -68,53 +101,371 @@ public class Query extends AbstractNeo4jConnection implements RunnableTask<Query
     )
     private Property<String> query;
 
+    @Schema(
+        title = "The parameters of the query",
+        description = "Sent as Bolt parameters and referenced as `$name` in the query: unlike values rendered in the query text, "
+            + "they let the server reuse the cached plan of the query across executions."
+    )
+    private Property<Map<String, Object>> parameters;
+
+    @Schema(
+        title = "The access mode of the query",
+        description = "READ route the query to a follower or read replica of a cluster, WRITE route it to the leader, "
+            + "and AUTO choose between them according to the query type returned by an `EXPLAIN` of the query. "
+            + "The query then runs in a transaction retried by the driver on transient errors. "
+            + "If not specified, the query runs in an auto-commit transaction on the leader, "
+            + "which is required by `CALL { } IN TRANSACTIONS` queries."
+    )
+    private Property<AccessMode> accessMode;
+
+    @Schema(
+        title = "Whether to add the metadata of nodes and relationships to the rows",
+        description = "Adds `_elementId` and `_labels` to the nodes, and `_elementId`, `_type`, `_startElementId` "
+            + "and `_endElementId` to the relationships."
+    )
+    @Builder.Default
+    private Property<Boolean> includeMetadata = Property.of(false);
+
     @Schema(
         title = "The way you want to store the data",
-        description = "FETCHONE output the first row"
-            + "FETCH output all the row"
-            + "STORE store all row in a file"
+        description = "Each record is a row keyed by column, a record with a single node, relationship or map column "
+            + "being the content of that column.\n"
+            + "FETCHONE output the first row\n"
+            + "FETCH output all the rows\n"
+            + "STORE store all the rows in a file\n"
             + "NONE do nothing"
     )
     @Builder.Default
     private Property<StoreType> storeType = Property.of(StoreType.NONE);
 
+    @Schema(
+        title = "The maximum number of rows kept in the `rows` output when using `FETCH`",
+        description = "If not specified, all the rows are fetched. See `fetchOverflow` for what happens to the rows above the limit."
+    )
+    private Property<Integer> fetchLimit;
+
+    @Schema(
+        title = "What to do when the result has more rows than `fetchLimit`",
+        description = "STORE keep the first rows in `rows` and store all the rows in a file returned as `uri`\n"
+            + "TRUNCATE only keep the first rows\n"
+            + "FAIL fail the task"
+    )
+    @Builder.Default
+    private Property<FetchOverflow> fetchOverflow = Property.of(FetchOverflow.STORE);
+
+    @Schema(
+        title = "The number of partitions read in parallel when using `STORE`",
+        description = "The query is run once per partition, in parallel sessions, with the `$partition` (from 0 to `partitions` - 1) "
+            + "and `$partitions` parameters that the query must use to only return its own part of the result, "
+            + "for example `WHERE id(n) % $partitions = $partition`. "
+            + "If not specified, the query is run once."
+    )
+    private Property<Integer> partitions;
+
+    @Schema(
+        title = "How the partitions are stored",
+        description = "MERGED store all the partitions in a single file returned as `uri`\n"
+            + "SEGMENTS store each partition in its own file, returned in `uris`"
+    )
+    @Builder.Default
+    private Property<PartitionOutput> partitionOutput = Property.of(PartitionOutput.MERGED);
+
+    @Schema(
+        title = "The key used to paginate the query when using `STORE`",
+        description = "The query is run once per page, each page in its own short read transaction retried on transient errors, "
+            + "with the `$cursor` parameter set to the value of this key in the last row of the previous page (null for the first page) "
+            + "and `$limit` set to `pageSize`. The query must filter and order on the key, for example "
+            + "`WHERE $cursor IS NULL OR n.id > $cursor RETURN n ORDER BY n.id LIMIT $limit`.\n"
+            + "The key must be unique: rows sharing the key of the last row of a page are skipped by the next page.\n"
+            + "If not specified, the query is run once."
+    )
+    private Property<String> paginationKey;
+
+    @Schema(
+        title = "The number of rows of each page when using `paginationKey`"
+    )
+    @Builder.Default
+    private Property<Integer> pageSize = Property.of(10000);
+
+    @Schema(
+        title = "The format of the stored files",
+        description = "ION a Kestra ion file\n"
+            + "CSV a CSV file with a header line, nested values being written as JSON\n"
+            + "JSONL a JSON Lines file, one JSON object per line\n"
+            + "Columnar formats (Parquet, Arrow IPC) are not supported yet and are planned as a follow-up: "
+            + "their writers pull in Hadoop or Arrow memory dependencies that are too heavy to ship with every install, "
+            + "so they will come as an optional format."
+    )
+    @Builder.Default
+    private Property<FileFormat> storeFormat = Property.of(FileFormat.ION);
+
+    @Schema(
+        title = "The columns of the stored CSV files",
+        description = "If not specified, the columns are the keys of the first row, and the keys missing from it are not stored."
+    )
+    private Property<List<String>> storeColumns;
+
+    @Schema(
+        title = "The compression of the stored files"
+    )
+    @Builder.Default
+    private Property<Compression> compression = Property.of(Compression.NONE);
+
+    @Schema(
+        title = "Whether to capture the execution plan of the query",
+        description = "NONE run the query as is\n"
+            + "EXPLAIN only plan the query without running it, returning no rows\n"
+            + "PROFILE run the query and capture the plan with the rows and db hits of each operator, "
+            + "emitting the total db hits, rows and page cache hits and misses as metrics.\n"
+            + "The plan is stored as a JSON file returned as `planUri`. Can't be used with `partitions` or `paginationKey`."
+    )
+    @Builder.Default
+    private Property<ProfileMode> profile = Property.of(ProfileMode.NONE);
+
     @Override
     public Output run(RunContext runContext) throws Exception {
         Logger logger = runContext.logger();
 
-        try (Driver driver = GraphDatabase.driver(runContext.render(getUrl()).as(String.class).orElse(null), this.credentials(runContext)); Session session = driver.session()) {
+        String render = runContext.render(query).as(String.class).orElse(null);
+        Map<String, Object> parametersValue = runContext.render(parameters).asMap(String.class, Object.class);
+        StoreType store = runContext.render(storeType).as(StoreType.class).orElseThrow();
+        Optional<Integer> partitionCount = runContext.render(partitions).as(Integer.class);
+        ResultFileWriter.Format format = new ResultFileWriter.Format(
+            runContext.render(storeFormat).as(FileFormat.class).orElseThrow(),
+            runContext.render(storeColumns).asList(String.class),
+            runContext.render(compression).as(Compression.class).orElseThrow()
+        );
+
+        Optional<String> paginationKeyValue = runContext.render(paginationKey).as(String.class);
+        Optional<AccessMode> accessModeValue = runContext.render(accessMode).as(AccessMode.class);
+        RecordConverter converter = new RecordConverter(runContext.render(includeMetadata).as(Boolean.class).orElseThrow());
+        ProfileMode profileValue = runContext.render(profile).as(ProfileMode.class).orElseThrow();
+
+        if (profileValue != ProfileMode.NONE && (paginationKeyValue.isPresent() || partitionCount.isPresent())) {
+            throw new IllegalArgumentException("The execution plan can't be captured on paginated or partitioned reads");
+        }
+
+        if (paginationKeyValue.isPresent()) {
+            if (store != StoreType.STORE || partitionCount.isPresent()) {
+                throw new IllegalArgumentException("Paginated reads can only be used with the 'STORE' store type and without partitions");
+            }
+
+            try (Neo4jDriverPool.Lease lease = this.driver(runContext)) {
+                logger.warn("Starting paginated query on key '{}': {}", paginationKeyValue.get(), render);
+
+                org.neo4j.driver.AccessMode mode = this.accessMode(lease.driver(), this.sessionConfig(runContext, null), render, parametersValue, accessModeValue);
+                int pageSizeValue = runContext.render(pageSize).as(Integer.class).orElseThrow();
+                long started = System.nanoTime();
+                Map.Entry<URI, Long> stored = this.storePaginated(lease.driver(), this.sessionConfig(runContext, mode), mode, render, parametersValue, paginationKeyValue.get(), pageSizeValue, format, converter, runContext);
+
+                throughput(runContext, stored.getValue(), started);
+                this.poolMetrics(runContext, lease.driver());
+
+                return Output.builder()
+                    .uri(stored.getKey())
+                    .size(stored.getValue())
+                    .build();
+            }
+        }
+
+        if (partitionCount.isPresent()) {
+            if (store != StoreType.STORE) {
+                throw new IllegalArgumentException("Partitioned reads can only be used with the 'STORE' store type");
+            }
+
+            if (partitionCount.get() < 1) {
+                throw new IllegalArgumentException("The 'partitions' must be at least 1, got " + partitionCount.get());
+            }
+
+            try (Neo4jDriverPool.Lease lease = this.driver(runContext)) {
+                logger.warn("Starting query on {} partitions: {}", partitionCount.get(), render);
+
+                PartitionOutput partitionOutputValue = runContext.render(partitionOutput).as(PartitionOutput.class).orElseThrow();
+                org.neo4j.driver.AccessMode mode = this.accessMode(lease.driver(), this.sessionConfig(runContext, null), render, parametersValue, accessModeValue);
+
+                long started = System.nanoTime();
+                Output output = this.storePartitioned(lease.driver(), this.sessionConfig(runContext, mode), mode, render, parametersValue, partitionCount.get(), partitionOutputValue, format, converter, runContext).build();
+
+                throughput(runContext, output.getSize(), started);
+                this.poolMetrics(runContext, lease.driver());
+
+                return output;
+            }
+        }
+
+        Optional<Integer> limit = runContext.render(fetchLimit).as(Integer.class);
+        FetchOverflow overflow = runContext.render(fetchOverflow).as(FetchOverflow.class).orElseThrow();
+
+        try (Neo4jDriverPool.Lease lease = this.driver(runContext)) {
+            org.neo4j.driver.AccessMode mode = this.accessMode(lease.driver(), this.sessionConfig(runContext, null), render, parametersValue, accessModeValue);
+            Handled handled;
+            long started = System.nanoTime();
+            AtomicLong firstRecord = new AtomicLong(-1);
+            AtomicReference<ResultSummary> summary = new AtomicReference<>();
+            String statement = profileValue == ProfileMode.NONE ? render : profileValue.name() + " " + render;
+
+            try (Session session = lease.driver().session(this.sessionConfig(runContext, mode))) {
+                logger.warn("Starting query: {}", render);
+
+                if (mode == null) {
+                    handled = this.handle(session.run(statement, parametersValue), started, firstRecord, summary, store, limit, overflow, format, converter, runContext);
+                } else {
+                    TransactionCallback<Handled> callback = tx -> {
+                        // a retried transaction measures its own time to first record
+                        long attemptStarted = System.nanoTime();
+
+                        try {
+                            return this.handle(tx.run(statement, parametersValue), attemptStarted, firstRecord, summary, store, limit, overflow, format, converter, runContext);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    };
+
+                    handled = mode == org.neo4j.driver.AccessMode.READ ? session.executeRead(callback) : session.executeWrite(callback);
+                }
+            }
+
+            // uploaded once the transaction is closed, so a retried transaction never uploads twice
+            Output.OutputBuilder output = handled.output();
+            if (handled.file() != null) {
+                output.uri(this.putFile(runContext, handled.file()));
+            }
+
+            Long size = output.build().getSize();
+            if (size != null) {
+                runContext.metric(Counter.of(store == StoreType.FETCHONE ? "fetch.size" : "store.size", size));
+                throughput(runContext, size, started);
+            }
+
+            if (firstRecord.get() >= 0) {
+                runContext.metric(Timer.of("first.record", Duration.ofNanos(firstRecord.get())));
+            }
+
+            if (profileValue != ProfileMode.NONE) {
+                output.planUri(this.storePlan(summary.get(), profileValue, runContext));
+            }
+
+            this.poolMetrics(runContext, lease.driver());
+
+            return output.build();
+        }
+    }
+
+    private URI storePlan(ResultSummary summary, ProfileMode profileMode, RunContext runContext) throws IOException {
+        Plan plan = profileMode == ProfileMode.PROFILE ? summary.profile() : summary.plan();
+
+        if (profileMode == ProfileMode.PROFILE) {
+            QueryPlan.metrics(runContext, summary.profile());
+        }
+
+        File tempFile = runContext.workingDir().createTempFile(".json").toFile();
+        JacksonMapper.ofJson().writeValue(tempFile, QueryPlan.toMap(plan));
+
+        return this.putFile(runContext, tempFile);
+    }
+
+    /**
+     * Resolve the access mode of the sessions, {@code AUTO} asking the server with an {@code EXPLAIN} of the query,
+     * null if not specified.
+     */
+    private org.neo4j.driver.AccessMode accessMode(Driver driver, SessionConfig sessionConfig, String query, Map<String, Object> parameters, Optional<AccessMode> accessMode) {
+        if (accessMode.isEmpty()) {
+            return null;
+        }
+
+        return switch (accessMode.get()) {
+            case READ -> org.neo4j.driver.AccessMode.READ;
+            case WRITE -> org.neo4j.driver.AccessMode.WRITE;
+            case AUTO -> {
+                try (Session session = driver.session(sessionConfig)) {
+                    QueryType queryType = session.run("EXPLAIN " + query, parameters).consume().queryType();
+
+                    yield queryType == QueryType.READ_ONLY ? org.neo4j.driver.AccessMode.READ : org.neo4j.driver.AccessMode.WRITE;
+                }
+            }
+        };
+    }
+
+    private SessionConfig sessionConfig(RunContext runContext, org.neo4j.driver.AccessMode mode) throws IllegalVariableEvaluationException {
+        SessionConfig.Builder builder = this.sessionConfig(runContext);
+
+        if (mode != null) {
+            builder.withDefaultAccessMode(mode);
+        }
+
+        return builder.build();
+    }
+
+    private static void throughput(RunContext runContext, long rows, long started) {
+        runContext.metric(Counter.of("rows.per.second", rows * 1_000_000_000D / Math.max(1, System.nanoTime() - started)));
+    }
+
+    private URI putFile(RunContext runContext, File file) throws IOException {
+        runContext.metric(Counter.of("bytes.written", file.length()));
+
+        return Neo4jTracing.span("neo4j.storage.upload", span -> {
+            span.setAttribute("neo4j.file.size", file.length());
+
+            return runContext.storage().putFile(file);
+        });
+    }
+
+    /**
+     * The output of a handled result, with the file to store if any.
+     */
+    private record Handled(Output.OutputBuilder output, File file) {
+    }
+
+    /**
+     * Handle the result according to the store type, may be called again if the transaction is retried.
+     * The rows are written to a local file only, uploaded by the caller once the transaction is closed.
+     */
+    private Handled handle(Result result, long started, AtomicLong firstRecord, AtomicReference<ResultSummary> summary, StoreType store, Optional<Integer> limit, FetchOverflow overflow, ResultFileWriter.Format format, RecordConverter converter, RunContext runContext) throws IOException {
+        return Neo4jTracing.span("neo4j.result", span -> {
             Output.OutputBuilder output = Output.builder();
+            File file = null;
 
-            String render = runContext.render(query).as(String.class).orElse(null);
-            logger.warn("Starting query: {}", render);
-            Result result = session.run(render);
+            if (store != StoreType.NONE) {
+                // blocks until the first record is received or the result is known to be empty
+                result.hasNext();
+                firstRecord.set(System.nanoTime() - started);
+            }
 
-            switch (runContext.render(storeType).as(StoreType.class).orElseThrow()) {
+            switch (store) {
                 case STORE:
-                    Map.Entry<URI, Long> store = this.storeResult(result, runContext);
-                    runContext.metric(Counter.of("store.size", store.getValue()));
-                    output
-                        .uri(store.getKey())
-                        .size(store.getValue());
+                    Map.Entry<File, Long> stored = this.writeTempFile(result, format, converter, runContext);
+                    file = stored.getKey();
+                    output.size(stored.getValue());
                     break;
                 case FETCH: {
-                    List<Map<String, Object>> fetchedResult = this.fetchResult(result);
+                    if (limit.isPresent()) {
+                        file = this.fetchLimitedResult(result, runContext, limit.get(), overflow, format, converter, output);
+                        break;
+                    }
+
+                    List<Map<String, Object>> fetchedResult = this.fetchResult(result, converter);
                     output.rows(fetchedResult);
                     output.size((long) fetchedResult.size());
-                    runContext.metric(Counter.of("store.size", fetchedResult.size()));
                     break;
                 }
                 case FETCHONE: {
-                    List<Map<String, Object>> fetchedResult = this.fetchResult(result);
+                    List<Map<String, Object>> fetchedResult = this.fetchResult(result, converter);
                     output.row(fetchedResult.size() > 0 ? fetchedResult.get(0) : ImmutableMap.of());
                     output.size((long) fetchedResult.size());
-                    runContext.metric(Counter.of("fetch.size", fetchedResult.size()));
                     break;
                 }
             }
 
-            return output.build();
-        }
+            summary.set(result.consume());
+            Neo4jTracing.server(span, summary.get());
+
+            Long size = output.build().getSize();
+            if (size != null) {
+                span.setAttribute("neo4j.rows", size);
+            }
+
+            return new Handled(output, file);
+        });
     }
 
     @Builder
@@ -134,61 +485,265 @@ public class Query extends AbstractNeo4jConnection implements RunnableTask<Query
 
         @Schema(
             title = "The uri of the stored result",
-            description = "Only populated if using `STORE`"
+            description = "Only populated if using `STORE`, or `FETCH` when the result has more rows than `fetchLimit`"
         )
         private URI uri;
 
+        @Schema(
+            title = "The uris of the stored partitions",
+            description = "Only populated if using `STORE` with `partitions` stored as `SEGMENTS`"
+        )
+        private List<URI> uris;
+
         @Schema(
             title = "The count of the rows fetch"
         )
         private Long size;
+
+        @Schema(
+            title = "The uri of the stored execution plan",
+            description = "Only populated if using `profile`."
+        )
+        private URI planUri;
     }
 
-    private Map.Entry<URI, Long> storeResult(Result result, RunContext runContext) throws IOException {
-        // temp file
-        File tempFile = runContext.workingDir().createTempFile(".ion").toFile();
-
-        try (
-            var output = new BufferedWriter(new FileWriter(tempFile), FileSerde.BUFFER_SIZE)
-        ) {
-            Flux<Object> flowable = Flux
-                .create(
-                    s -> {
-                        StreamSupport
-                            .stream(
-                                result
-                                    .stream()
-                                    .map(Record::values)
-                                    .flatMap(Collection::stream)
-                                    .map(Value::asMap).spliterator(),
-                                false
-                            )
-                            .forEach(s::next);
-
-                        s.complete();
-                    },
-                    FluxSink.OverflowStrategy.BUFFER
-                );
-
-            Mono<Long> count = FileSerde.writeAll(output, flowable);
-
-            // metrics & finalize
-            Long lineCount = count.block();
-
-            output.flush();
+    private Output.OutputBuilder storePartitioned(Driver driver, SessionConfig sessionConfig, org.neo4j.driver.AccessMode mode, String query, Map<String, Object> parameters, int partitions, PartitionOutput partitionOutput, ResultFileWriter.Format format, RecordConverter converter, RunContext runContext) throws IOException {
+        if (partitionOutput == PartitionOutput.MERGED && format.format() == FileFormat.CSV && (format.columns() == null || format.columns().isEmpty())) {
+            throw new IllegalArgumentException("'storeColumns' is required to merge partitions stored as CSV");
+        }
+
+        // merged segments are only compressed once concatenated
+        ResultFileWriter.Format segmentFormat = partitionOutput == PartitionOutput.MERGED ? format.uncompressed() : format;
+        List<Map.Entry<File, Long>> segments;
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Scheduler scheduler = Schedulers.fromExecutorService(executor);
+            Object tracing = Neo4jTracing.current();
+
+            segments = Flux.range(0, partitions)
+                .flatMapSequential(
+                    partition -> Mono
+                        .fromCallable(() -> Neo4jTracing.span("neo4j.partition", tracing, span -> {
+                            span.setAttribute("neo4j.partition", partition);
+
+                            return this.writeSegment(driver, sessionConfig, mode, query, parameters, partition, partitions, segmentFormat, converter, runContext);
+                        }))
+                        .subscribeOn(scheduler),
+                    partitions
+                )
+                .collectList()
+                .block();
+        }
+
+        long size = segments.stream().mapToLong(Map.Entry::getValue).sum();
+        runContext.metric(Counter.of("store.size", size));
+
+        Output.OutputBuilder output = Output.builder().size(size);
+
+        if (partitionOutput == PartitionOutput.SEGMENTS) {
+            List<URI> uris = new ArrayList<>();
+            for (Map.Entry<File, Long> segment : segments) {
+                uris.add(this.putFile(runContext, segment.getKey()));
+            }
+
+            return output.uris(uris);
+        }
+
+        // all formats are one row per line, merging the segments is a plain concatenation
+        File tempFile = runContext.workingDir().createTempFile(format.extension()).toFile();
+        try (OutputStream merged = Compressions.compress(new FileOutputStream(tempFile), format.compression())) {
+            boolean first = true;
+
+            for (Map.Entry<File, Long> segment : segments) {
+                boolean empty = segment.getKey().length() == 0;
+
+                try (InputStream input = new BufferedInputStream(new FileInputStream(segment.getKey()), FileSerde.BUFFER_SIZE)) {
+                    if (format.format() == FileFormat.CSV && !first) {
+                        // keep only the header of the first non-empty segment
+                        int read;
+                        do {
+                            read = input.read();
+                        } while (read != -1 && read != '\n');
+                    }
+
+                    input.transferTo(merged);
+                }
+
+                Files.delete(segment.getKey().toPath());
+                first = first && empty;
+            }
+        }
+
+        return output.uri(this.putFile(runContext, tempFile));
+    }
+
+    private Map.Entry<File, Long> writeSegment(Driver driver, SessionConfig sessionConfig, org.neo4j.driver.AccessMode mode, String query, Map<String, Object> parameters, int partition, int partitions, ResultFileWriter.Format format, RecordConverter converter, RunContext runContext) throws IOException {
+        try (Session session = driver.session(sessionConfig)) {
+            Map<String, Object> segmentParameters = new HashMap<>(parameters);
+            segmentParameters.put("partition", partition);
+            segmentParameters.put("partitions", partitions);
+
+            File tempFile = runContext.workingDir().createTempFile(format.extension()).toFile();
+
+            if (mode == null) {
+                return new AbstractMap.SimpleEntry<>(tempFile, this.writeResult(session.run(query, segmentParameters), tempFile, format, converter));
+            }
+
+            // a retried segment truncates the file written by the failed attempt
+            TransactionCallback<Long> callback = tx -> {
+                try {
+                    return this.writeResult(tx.run(query, segmentParameters), tempFile, format, converter);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            };
 
             return new AbstractMap.SimpleEntry<>(
-                runContext.storage().putFile(tempFile),
-                lineCount
+                tempFile,
+                mode == org.neo4j.driver.AccessMode.READ ? session.executeRead(callback) : session.executeWrite(callback)
             );
         }
     }
 
-    private List<Map<String, Object>> fetchResult(Result result) {
-        return result.stream()
-            .map(Record::values)
-            .flatMap(Collection::stream)
-            .map(Value::asMap)
+    /**
+     * The rows of a page, with the pagination key of its last row.
+     */
+    private record Page(List<Map<String, Object>> rows, Object cursor) {
+    }
+
+    /**
+     * The value of the pagination key in a record, read from the driver value rather than the converted row so
+     * every type, like durations, is sent back to the server as is.
+     */
+    private static Object cursor(Record record, String key) {
+        TypeSystem types = TypeSystem.getDefault();
+        Value value;
+
+        if (record.containsKey(key)) {
+            value = record.get(key);
+        } else if (record.size() == 1 && (record.get(0).hasType(types.NODE()) || record.get(0).hasType(types.RELATIONSHIP()) || record.get(0).hasType(types.MAP()))) {
+            // a single node, relationship or map column is converted to its content
+            value = record.get(0).get(key);
+        } else {
+            return null;
+        }
+
+        return value.isNull() ? null : value.asObject();
+    }
+
+    private Map.Entry<URI, Long> storePaginated(Driver driver, SessionConfig sessionConfig, org.neo4j.driver.AccessMode mode, String query, Map<String, Object> parameters, String key, int pageSize, ResultFileWriter.Format format, RecordConverter converter, RunContext runContext) throws IOException {
+        File tempFile = runContext.workingDir().createTempFile(format.extension()).toFile();
+        long pages = 0;
+        long lineCount;
+
+        try (Session session = driver.session(sessionConfig); ResultFileWriter writer = format.open(tempFile)) {
+            Object cursor = null;
+            Page page;
+
+            do {
+                Map<String, Object> pageParameters = new HashMap<>(parameters);
+                pageParameters.put("cursor", cursor);
+                pageParameters.put("limit", pageSize);
+
+                // the page is fully read in the transaction, so a retried page is never written twice
+                TransactionCallback<Page> callback = tx -> {
+                    List<Record> records = tx.run(query, pageParameters).list();
+
+                    return new Page(
+                        rows(records.stream(), converter).toList(),
+                        records.isEmpty() ? null : cursor(records.getLast(), key)
+                    );
+                };
+                long pageIndex = pages;
+                page = Neo4jTracing.span("neo4j.page", span -> {
+                    span.setAttribute("neo4j.page", pageIndex);
+
+                    return mode == org.neo4j.driver.AccessMode.WRITE ? session.executeWrite(callback) : session.executeRead(callback);
+                });
+                writer.writeAll(page.rows().iterator());
+                pages++;
+
+                if (!page.rows().isEmpty()) {
+                    cursor = page.cursor();
+
+                    if (cursor == null) {
+                        throw new IllegalStateException("The last row of page " + pages + " has no value for the pagination key '" + key + "'");
+                    }
+                }
+            } while (page.rows().size() >= pageSize);
+
+            lineCount = writer.count();
+        }
+
+        runContext.metric(Counter.of("pages", pages));
+        runContext.metric(Counter.of("store.size", lineCount));
+
+        return new AbstractMap.SimpleEntry<>(
+            this.putFile(runContext, tempFile),
+            lineCount
+        );
+    }
+
+    private Map.Entry<File, Long> writeTempFile(Result result, ResultFileWriter.Format format, RecordConverter converter, RunContext runContext) throws IOException {
+        // temp file
+        File tempFile = runContext.workingDir().createTempFile(format.extension()).toFile();
+
+        return new AbstractMap.SimpleEntry<>(tempFile, this.writeResult(result, tempFile, format, converter));
+    }
+
+    private Long writeResult(Result result, File tempFile, ResultFileWriter.Format format, RecordConverter converter) throws IOException {
+        try (ResultFileWriter writer = format.open(tempFile)) {
+            // records are pulled from the cursor only once the previous one is written
+            return writer.writeAll(rows(result.stream(), converter).iterator());
+        }
+    }
+
+    /**
+     * Fetch the first rows, returning the file the rows were spilled to if any.
+     */
+    private File fetchLimitedResult(Result result, RunContext runContext, int limit, FetchOverflow overflow, ResultFileWriter.Format format, RecordConverter converter, Output.OutputBuilder output) throws IOException {
+        Iterator<Map<String, Object>> rows = rows(result.stream(), converter).iterator();
+
+        List<Map<String, Object>> fetched = new ArrayList<>();
+        while (fetched.size() < limit && rows.hasNext()) {
+            fetched.add(rows.next());
+        }
+
+        output.rows(fetched);
+        output.size((long) fetched.size());
+
+        if (!rows.hasNext()) {
+            return null;
+        }
+
+        switch (overflow) {
+            case FAIL:
+                throw new IllegalStateException("The query returned more than " + limit + " rows");
+            case TRUNCATE:
+                result.consume();
+                return null;
+            default:
+                // spill the fetched rows and the remaining ones to a file
+                File tempFile = runContext.workingDir().createTempFile(format.extension()).toFile();
+
+                long lineCount;
+                try (ResultFileWriter writer = format.open(tempFile)) {
+                    writer.writeAll(fetched.iterator());
+                    lineCount = writer.writeAll(rows);
+                }
+
+                output.size(lineCount);
+
+                return tempFile;
+        }
+    }
+
+    private List<Map<String, Object>> fetchResult(Result result, RecordConverter converter) {
+        return rows(result.stream(), converter)
             .collect(Collectors.toList());
     }
+
+    static Stream<Map<String, Object>> rows(Stream<Record> records, RecordConverter converter) {
+        return records.map(converter::convert);
+    }
 }
@@ -0,0 +1,81 @@
+package io.kestra.plugin.neo4j;
+
+import io.kestra.core.models.executions.metrics.Counter;
+import io.kestra.core.runners.RunContext;
+import org.neo4j.driver.Value;
+import org.neo4j.driver.summary.Plan;
+import org.neo4j.driver.summary.ProfiledPlan;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The plan of a query run with {@code EXPLAIN} or {@code PROFILE}, as a tree of maps serializable to JSON.
+ */
+final class QueryPlan {
+    private QueryPlan() {
+    }
+
+    static Map<String, Object> toMap(Plan plan) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("operatorType", plan.operatorType());
+        map.put("identifiers", plan.identifiers());
+
+        Map<String, Object> arguments = new LinkedHashMap<>();
+        for (Map.Entry<String, Value> argument : plan.arguments().entrySet()) {
+            arguments.put(argument.getKey(), argument.getValue().asObject());
+        }
+        map.put("arguments", arguments);
+
+        if (plan instanceof ProfiledPlan profiled) {
+            map.put("dbHits", profiled.dbHits());
+            map.put("records", profiled.records());
+            map.put("time", profiled.time());
+
+            if (profiled.hasPageCacheStats()) {
+                map.put("pageCacheHits", profiled.pageCacheHits());
+                map.put("pageCacheMisses", profiled.pageCacheMisses());
+                map.put("pageCacheHitRatio", profiled.pageCacheHitRatio());
+            }
+        }
+
+        List<Map<String, Object>> children = new ArrayList<>();
+        for (Plan child : plan.children()) {
+            children.add(toMap(child));
+        }
+        map.put("children", children);
+
+        return map;
+    }
+
+    /**
+     * Emit the db hits and page cache statistics summed over the whole plan, and the rows of its root operator.
+     */
+    static void metrics(RunContext runContext, ProfiledPlan plan) {
+        long[] totals = new long[3];
+        sum(plan, totals);
+
+        runContext.metric(Counter.of("profile.db.hits", totals[0]));
+        runContext.metric(Counter.of("profile.rows", plan.records()));
+
+        if (plan.hasPageCacheStats()) {
+            runContext.metric(Counter.of("profile.page.cache.hits", totals[1]));
+            runContext.metric(Counter.of("profile.page.cache.misses", totals[2]));
+        }
+    }
+
+    private static void sum(ProfiledPlan plan, long[] totals) {
+        totals[0] += plan.dbHits();
+
+        if (plan.hasPageCacheStats()) {
+            totals[1] += plan.pageCacheHits();
+            totals[2] += plan.pageCacheMisses();
+        }
+
+        for (ProfiledPlan child : plan.children()) {
+            sum(child, totals);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package io.kestra.plugin.neo4j;
+
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Value;
+import org.neo4j.driver.types.Entity;
+import org.neo4j.driver.types.Node;
+import org.neo4j.driver.types.Path;
+import org.neo4j.driver.types.Point;
+import org.neo4j.driver.types.Relationship;
+import org.neo4j.driver.types.TypeSystem;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Convert the records of a result to rows keyed by column, with plain java values that the file serializers handle.
+ * <p>
+ * A record with a single node, relationship or map column is converted to the content of that column, so
+ * {@code RETURN p} keeps giving rows with the properties of {@code p} as top-level keys.
+ */
+final class RecordConverter {
+    static final String ELEMENT_ID = "_elementId";
+    static final String LABELS = "_labels";
+    static final String TYPE = "_type";
+    static final String START_ELEMENT_ID = "_startElementId";
+    static final String END_ELEMENT_ID = "_endElementId";
+
+    private static final TypeSystem TYPES = TypeSystem.getDefault();
+
+    private final boolean metadata;
+
+    RecordConverter(boolean metadata) {
+        this.metadata = metadata;
+    }
+
+    Map<String, Object> convert(Record record) {
+        List<String> keys = record.keys();
+
+        if (keys.size() == 1) {
+            Value value = record.get(0);
+
+            if (value.hasType(TYPES.NODE()) || value.hasType(TYPES.RELATIONSHIP()) || value.hasType(TYPES.MAP())) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> row = (Map<String, Object>) this.value(value);
+                return row;
+            }
+        }
+
+        Map<String, Object> row = LinkedHashMap.newLinkedHashMap(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            row.put(keys.get(i), this.value(record.get(i)));
+        }
+
+        return row;
+    }
+
+    private Object value(Value value) {
+        // most frequent types first
+        if (value.isNull()) {
+            return null;
+        } else if (value.hasType(TYPES.STRING())) {
+            return value.asString();
+        } else if (value.hasType(TYPES.INTEGER())) {
+            return value.asLong();
+        } else if (value.hasType(TYPES.FLOAT())) {
+            return value.asDouble();
+        } else if (value.hasType(TYPES.BOOLEAN())) {
+            return value.asBoolean();
+        } else if (value.hasType(TYPES.NODE())) {
+            return this.node(value.asNode());
+        } else if (value.hasType(TYPES.RELATIONSHIP())) {
+            return this.relationship(value.asRelationship());
+        } else if (value.hasType(TYPES.LIST())) {
+            List<Object> list = new ArrayList<>(value.size());
+            for (Value item : value.values()) {
+                list.add(this.value(item));
+            }
+
+            return list;
+        } else if (value.hasType(TYPES.MAP())) {
+            Map<String, Object> map = HashMap.newHashMap(value.size());
+            for (String key : value.keys()) {
+                map.put(key, this.value(value.get(key)));
+            }
+
+            return map;
+        } else if (value.hasType(TYPES.PATH())) {
+            return this.path(value.asPath());
+        } else if (value.hasType(TYPES.POINT())) {
+            return point(value.asPoint());
+        } else if (value.hasType(TYPES.DURATION())) {
+            // ISO-8601, as months and days can't be represented by a java Duration
+            return value.asIsoDuration().toString();
+        }
+
+        // bytes and temporal types, as their java.time equivalent
+        return value.asObject();
+    }
+
+    private Map<String, Object> node(Node node) {
+        Map<String, Object> map = this.properties(node, 2);
+
+        if (metadata) {
+            map.put(ELEMENT_ID, node.elementId());
+
+            List<String> labels = new ArrayList<>();
+            node.labels().forEach(labels::add);
+            map.put(LABELS, labels);
+        }
+
+        return map;
+    }
+
+    private Map<String, Object> relationship(Relationship relationship) {
+        Map<String, Object> map = this.properties(relationship, 4);
+
+        if (metadata) {
+            map.put(ELEMENT_ID, relationship.elementId());
+            map.put(TYPE, relationship.type());
+            map.put(START_ELEMENT_ID, relationship.startNodeElementId());
+            map.put(END_ELEMENT_ID, relationship.endNodeElementId());
+        }
+
+        return map;
+    }
+
+    private Map<String, Object> path(Path path) {
+        List<Object> nodes = new ArrayList<>(path.length() + 1);
+        path.nodes().forEach(node -> nodes.add(this.node(node)));
+
+        List<Object> relationships = new ArrayList<>(path.length());
+        path.relationships().forEach(relationship -> relationships.add(this.relationship(relationship)));
+
+        Map<String, Object> map = HashMap.newHashMap(2);
+        map.put("nodes", nodes);
+        map.put("relationships", relationships);
+
+        return map;
+    }
+
+    private Map<String, Object> properties(Entity entity, int extra) {
+        Map<String, Object> map = HashMap.newHashMap(entity.size() + (metadata ? extra : 0));
+
+        for (String key : entity.keys()) {
+            map.put(key, this.value(entity.get(key)));
+        }
+
+        return map;
+    }
+
+    private static Map<String, Object> point(Point point) {
+        Map<String, Object> map = HashMap.newHashMap(4);
+        map.put("srid", point.srid());
+        map.put("x", point.x());
+        map.put("y", point.y());
+
+        if (!Double.isNaN(point.z())) {
+            map.put("z", point.z());
+        }
+
+        return map;
+    }
+}
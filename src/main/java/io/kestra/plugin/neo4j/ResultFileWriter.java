@@ -0,0 +1,158 @@
+package io.kestra.plugin.neo4j;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import io.kestra.core.serializers.FileSerde;
+import io.kestra.core.serializers.JacksonMapper;
+import io.kestra.plugin.neo4j.models.Compression;
+import io.kestra.plugin.neo4j.models.FileFormat;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Write the rows of a {@link Query} result to a file, one row at a time whatever the format.
+ */
+final class ResultFileWriter implements Closeable {
+    private static final ObjectMapper JSON_MAPPER = JacksonMapper.ofJson();
+    private static final CsvMapper CSV_MAPPER = new CsvMapper();
+
+    private final OutputStream output;
+    private final FileFormat format;
+    private List<String> columns;
+    private SequenceWriter csv;
+    private long count;
+
+    private ResultFileWriter(OutputStream output, FileFormat format, List<String> columns) throws IOException {
+        this.output = output;
+        this.format = format;
+        this.columns = columns;
+
+        if (format == FileFormat.CSV && columns != null && !columns.isEmpty()) {
+            // explicit columns, an empty result still has its header
+            this.openCsv();
+        }
+    }
+
+    void write(Map<String, Object> row) throws IOException {
+        switch (format) {
+            case CSV:
+                this.writeCsv(row);
+                break;
+            case JSONL:
+                output.write(JSON_MAPPER.writeValueAsBytes(row));
+                output.write('\n');
+                break;
+            default:
+                FileSerde.write(output, row);
+        }
+
+        count++;
+    }
+
+    /**
+     * Write all the rows, pulling the next one only once the previous one is written.
+     */
+    long writeAll(Iterator<Map<String, Object>> rows) throws IOException {
+        while (rows.hasNext()) {
+            this.write(rows.next());
+        }
+
+        return count;
+    }
+
+    long count() {
+        return count;
+    }
+
+    private void writeCsv(Map<String, Object> row) throws IOException {
+        if (csv == null) {
+            // no explicit columns, infer them from the first row
+            columns = new ArrayList<>(row.keySet());
+            this.openCsv();
+        }
+
+        List<Object> cells = new ArrayList<>(columns.size());
+        for (String column : columns) {
+            cells.add(cell(row.get(column)));
+        }
+
+        csv.write(cells);
+    }
+
+    private void openCsv() throws IOException {
+        CsvSchema.Builder schema = CsvSchema.builder();
+        columns.forEach(schema::addColumn);
+
+        csv = CSV_MAPPER.writer(schema.build()).writeValues(output);
+        // written as a row rather than by the schema, which only writes the header along with the first row
+        csv.write(columns);
+    }
+
+    private static Object cell(Object value) throws IOException {
+        if (value == null || value instanceof String || value instanceof Number || value instanceof Boolean) {
+            return value;
+        }
+
+        if (value instanceof Map || value instanceof Collection) {
+            return JSON_MAPPER.writeValueAsString(value);
+        }
+
+        // base64, as in the JSON files
+        if (value instanceof byte[] bytes) {
+            return Base64.getEncoder().encodeToString(bytes);
+        }
+
+        return value.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (csv != null) {
+            csv.close();
+        } else {
+            output.close();
+        }
+    }
+
+    /**
+     * The rendered format of the files written by a {@link Query}.
+     */
+    record Format(FileFormat format, List<String> columns, Compression compression) {
+        String extension() {
+            String extension = switch (format) {
+                case CSV -> ".csv";
+                case JSONL -> ".jsonl";
+                default -> ".ion";
+            };
+
+            return extension + Compressions.extension(compression);
+        }
+
+        Format uncompressed() {
+            return new Format(format, columns, Compression.NONE);
+        }
+
+        ResultFileWriter open(File file) throws IOException {
+            return this.open(new FileOutputStream(file));
+        }
+
+        ResultFileWriter open(OutputStream output) throws IOException {
+            OutputStream compressed = Compressions.compress(output, compression);
+
+            return new ResultFileWriter(new BufferedOutputStream(compressed, FileSerde.BUFFER_SIZE), format, columns);
+        }
+    }
+}
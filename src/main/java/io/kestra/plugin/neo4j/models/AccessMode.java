@@ -0,0 +1,7 @@
+package io.kestra.plugin.neo4j.models;
+
+public enum AccessMode {
+    READ,
+    WRITE,
+    AUTO
+}
@@ -0,0 +1,52 @@
+package io.kestra.plugin.neo4j.models;
+
+import io.kestra.core.models.property.Property;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.jackson.Jacksonized;
+
+import java.time.Duration;
+
+@Getter
+@Builder
+@Jacksonized
+public class ChunkRetry {
+    @Schema(
+        title = "The maximum number of attempts of a transaction, including the first one"
+    )
+    @Builder.Default
+    @NotNull
+    private Property<Integer> maxAttempts = Property.of(5);
+
+    @Schema(
+        title = "The delay before the first retry, doubled on each following one"
+    )
+    @Builder.Default
+    @NotNull
+    private Property<Duration> initialDelay = Property.of(Duration.ofMillis(100));
+
+    @Schema(
+        title = "The maximum delay between two retries"
+    )
+    @Builder.Default
+    @NotNull
+    private Property<Duration> maxDelay = Property.of(Duration.ofSeconds(10));
+
+    @Schema(
+        title = "The random factor applied to each delay",
+        description = "Between 0 (no jitter) and 1, to avoid concurrent transactions retrying in lockstep."
+    )
+    @Builder.Default
+    @NotNull
+    private Property<Double> jitter = Property.of(0.5);
+
+    @Schema(
+        title = "Whether to split a transaction in two halves when it's still failing after all attempts",
+        description = "Each half is retried on its own, and split again if needed, until a single row is left."
+    )
+    @Builder.Default
+    @NotNull
+    private Property<Boolean> splitOnFailure = Property.of(false);
+}
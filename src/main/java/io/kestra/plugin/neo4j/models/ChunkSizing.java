@@ -0,0 +1,6 @@
+package io.kestra.plugin.neo4j.models;
+
+public enum ChunkSizing {
+    FIXED,
+    ADAPTIVE
+}
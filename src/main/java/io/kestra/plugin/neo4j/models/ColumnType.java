@@ -0,0 +1,11 @@
+package io.kestra.plugin.neo4j.models;
+
+public enum ColumnType {
+    STRING,
+    INTEGER,
+    FLOAT,
+    BOOLEAN,
+    DATE,
+    LOCAL_DATETIME,
+    DATETIME
+}
@@ -0,0 +1,8 @@
+package io.kestra.plugin.neo4j.models;
+
+public enum Compression {
+    NONE,
+    GZIP,
+    ZSTD,
+    LZ4
+}
@@ -0,0 +1,6 @@
+package io.kestra.plugin.neo4j.models;
+
+public enum OnError {
+    FAIL,
+    DEAD_LETTER
+}
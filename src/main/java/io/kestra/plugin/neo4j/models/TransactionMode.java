@@ -0,0 +1,8 @@
+package io.kestra.plugin.neo4j.models;
+
+public enum TransactionMode {
+    SINGLE,
+    PER_CHUNK,
+    EVERY_N_CHUNKS,
+    SERVER
+}
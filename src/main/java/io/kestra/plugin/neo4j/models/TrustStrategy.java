@@ -0,0 +1,6 @@
+package io.kestra.plugin.neo4j.models;
+
+public enum TrustStrategy {
+    TRUST_SYSTEM_CA_SIGNED_CERTIFICATES,
+    TRUST_ALL_CERTIFICATES
+}
@@ -0,0 +1,74 @@
+package io.kestra.plugin.neo4j;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AdaptiveChunkSizerTest {
+    private static final Duration FAST = Duration.ofMillis(500);
+    private static final Duration SLOW = Duration.ofSeconds(2);
+
+    @Test
+    void increase() {
+        AdaptiveChunkSizer sizer = new AdaptiveChunkSizer(1000, 100, 1200, Duration.ofSeconds(1));
+        assertThat(sizer.size(), is(1000));
+
+        // grows by a tenth of the initial size
+        sizer.observe(FAST);
+        assertThat(sizer.size(), is(1100));
+
+        sizer.observe(FAST);
+        assertThat(sizer.size(), is(1200));
+
+        // capped to the max
+        sizer.observe(FAST);
+        assertThat(sizer.size(), is(1200));
+    }
+
+    @Test
+    void decrease() {
+        AdaptiveChunkSizer sizer = new AdaptiveChunkSizer(1000, 100, 5000, Duration.ofSeconds(1));
+
+        sizer.observe(SLOW);
+        assertThat(sizer.size(), is(500));
+
+        sizer.observe(SLOW);
+        assertThat(sizer.size(), is(250));
+
+        sizer.observe(SLOW);
+        assertThat(sizer.size(), is(125));
+
+        // floored to the min
+        sizer.observe(SLOW);
+        assertThat(sizer.size(), is(100));
+
+        sizer.observe(FAST);
+        assertThat(sizer.size(), is(200));
+    }
+
+    @Test
+    void bounds() {
+        assertThat(new AdaptiveChunkSizer(10, 100, 1000, Duration.ofSeconds(1)).size(), is(100));
+        assertThat(new AdaptiveChunkSizer(10000, 100, 1000, Duration.ofSeconds(1)).size(), is(1000));
+    }
+
+    @Test
+    void boundary() {
+        AdaptiveChunkSizer sizer = new AdaptiveChunkSizer(3, 1, 10, Duration.ofSeconds(1));
+
+        assertThat(sizer.boundary("a"), is(false));
+        assertThat(sizer.boundary("b"), is(false));
+        assertThat(sizer.boundary("c"), is(true));
+        assertThat(sizer.boundary("d"), is(false));
+    }
+
+    @Test
+    void invalidBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveChunkSizer(1000, 0, 1200, Duration.ofSeconds(1)));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveChunkSizer(1000, 2000, 1200, Duration.ofSeconds(1)));
+    }
+}
@@ -2,13 +2,22 @@ package io.kestra.plugin.neo4j;
 
 import com.google.common.collect.ImmutableMap;
 import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.executions.AbstractMetricEntry;
 import io.kestra.core.models.property.Property;
 import io.kestra.core.runners.RunContext;
 import io.kestra.core.runners.RunContextFactory;
 import io.kestra.core.serializers.FileSerde;
 import io.kestra.core.storages.StorageInterface;
+import io.kestra.core.storages.kv.KVEntry;
+import io.kestra.core.storages.kv.KVStore;
 import io.kestra.core.utils.IdUtils;
 import io.kestra.core.utils.TestsUtils;
+import io.kestra.plugin.neo4j.models.ChunkSizing;
+import io.kestra.plugin.neo4j.models.ColumnType;
+import io.kestra.plugin.neo4j.models.FileFormat;
+import io.kestra.plugin.neo4j.models.OnError;
+import io.kestra.plugin.neo4j.models.StoreType;
+import io.kestra.plugin.neo4j.models.TransactionMode;
 import jakarta.inject.Inject;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
@@ -17,17 +26,25 @@ import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import org.testcontainers.utility.DockerImageName;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.OutputStream;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasItems;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @KestraTest
 @Testcontainers
@@ -63,8 +80,401 @@ public class BatchTest {
         RunContext runContext = TestsUtils.mockRunContext(runContextFactory, batch, ImmutableMap.of());
         Batch.Output run = batch.run(runContext);
 
-        assertThat(run.getUpdatedCount(), is(25000));
+        assertThat(run.getUpdatedCount(), is(25000L));
         assertThat(run.getRowCount().intValue(), is(25));
+        assertThat(run.getNodesCreated(), is(25000L));
+        assertThat(run.getPropertiesSet(), is(50000L));
+        assertThat(run.getLabelsAdded(), is(25000L));
+
+        List<String> metrics = runContext.metrics().stream().map(AbstractMetricEntry::getName).toList();
+        assertThat(metrics, hasItems("driver.acquire", "chunk.run.p99", "commit.p50", "bytes.read", "rows.per.second", "pool.in.use"));
+    }
+
+    @Test
+    void batchConcurrent() throws Exception {
+        Batch batch = Batch.builder()
+            .id(IdUtils.create())
+            .type(Batch.class.getName())
+            .query(Property.of(query()))
+            .url(Property.of(neo4jContainer.getBoltUrl()))
+            .username(Property.of("neo4j"))
+            .password(Property.of(neo4jContainer.getAdminPassword()))
+            .from(Property.of(createTestFile().toString()))
+            .concurrency(Property.of(4))
+            .build();
+
+        RunContext runContext = TestsUtils.mockRunContext(runContextFactory, batch, ImmutableMap.of());
+        Batch.Output run = batch.run(runContext);
+
+        assertThat(run.getUpdatedCount(), is(25000L));
+        assertThat(run.getRowCount().intValue(), is(25));
+    }
+
+    @Test
+    void batchEveryNChunks() throws Exception {
+        Batch batch = Batch.builder()
+            .id(IdUtils.create())
+            .type(Batch.class.getName())
+            .query(Property.of(query()))
+            .url(Property.of(neo4jContainer.getBoltUrl()))
+            .username(Property.of("neo4j"))
+            .password(Property.of(neo4jContainer.getAdminPassword()))
+            .from(Property.of(createTestFile().toString()))
+            .transactionMode(Property.of(TransactionMode.EVERY_N_CHUNKS))
+            .chunksPerTransaction(Property.of(5))
+            .build();
+
+        RunContext runContext = TestsUtils.mockRunContext(runContextFactory, batch, ImmutableMap.of());
+        Batch.Output run = batch.run(runContext);
+
+        assertThat(run.getUpdatedCount(), is(25000L));
+        assertThat(run.getRowCount().intValue(), is(25));
+    }
+
+    @Test
+    void batchServer() throws Exception {
+        Batch batch = Batch.builder()
+            .id(IdUtils.create())
+            .type(Batch.class.getName())
+            .query(Property.of(query()))
+            .url(Property.of(neo4jContainer.getBoltUrl()))
+            .username(Property.of("neo4j"))
+            .password(Property.of(neo4jContainer.getAdminPassword()))
+            .from(Property.of(createTestFile().toString()))
+            .transactionMode(Property.of(TransactionMode.SERVER))
+            .serverPageSize(Property.of(10000))
+            .build();
+
+        RunContext runContext = TestsUtils.mockRunContext(runContextFactory, batch, ImmutableMap.of());
+        Batch.Output run = batch.run(runContext);
+
+        assertThat(run.getUpdatedCount(), is(25000L));
+        assertThat(run.getRowCount().intValue(), is(3));
+    }
+
+    @Test
+    void inTransactions() {
+        assertThat(
+            Batch.inTransactions("unwind $props AS row\nMERGE (n:Person {id: row.id})", 500, 4),
+            is("UNWIND $props AS row\nCALL {\nWITH row\nMERGE (n:Person {id: row.id})\n} IN 4 CONCURRENT TRANSACTIONS OF 500 ROWS")
+        );
+
+        assertThat(
+            Batch.inTransactions(query(), 500, 1),
+            is("UNWIND $props AS properties\nCALL {\nWITH properties\nCREATE (n:Person)\nSET n = properties\n} IN TRANSACTIONS OF 500 ROWS")
+        );
+
+        assertThat(
+            Batch.inTransactions("UNWIND $props AS row\nCALL {\nWITH row\nMERGE (n:Person {id: row.id})\nRETURN n\n}\nSET n.seen = true", 500, 1),
+            is("UNWIND $props AS row\nCALL {\nWITH row\nCALL {\nWITH row\nMERGE (n:Person {id: row.id})\nRETURN n\n}\nSET n.seen = true\n} IN TRANSACTIONS OF 500 ROWS")
+        );
+
+        // property keys, strings, quoted names, parameters and comments aren't clauses
+        assertThat(
+            Batch.inTransactions("UNWIND $props AS row\nMERGE (t:T {id: row.id})\nSET t.return = row.return", 500, 1),
+            is("UNWIND $props AS row\nCALL {\nWITH row\nMERGE (t:T {id: row.id})\nSET t.return = row.return\n} IN TRANSACTIONS OF 500 ROWS")
+        );
+
+        assertThat(
+            Batch.inTransactions("UNWIND $props AS row\nMERGE (t:T {id: row.id})\nSET t.kind = 'RETURN', t.note = \"a \\\" return\"", 500, 1),
+            is("UNWIND $props AS row\nCALL {\nWITH row\nMERGE (t:T {id: row.id})\nSET t.kind = 'RETURN', t.note = \"a \\\" return\"\n} IN TRANSACTIONS OF 500 ROWS")
+        );
+
+        assertThat(
+            Batch.inTransactions("UNWIND $props AS row\nMERGE (t:`RETURN` {id: row.id})\nSET t.`return` = $return // RETURN t\n/* RETURN t */", 500, 1),
+            is("UNWIND $props AS row\nCALL {\nWITH row\nMERGE (t:`RETURN` {id: row.id})\nSET t.`return` = $return // RETURN t\n/* RETURN t */\n} IN TRANSACTIONS OF 500 ROWS")
+        );
+
+        assertThat(
+            Batch.inTransactions("UNWIND $props AS row\nMERGE (t:T {id: row.id})\nreturn t.id AS `RETURN`", 500, 1),
+            is("UNWIND $props AS row\nCALL {\nWITH row\nMERGE (t:T {id: row.id})\n} IN TRANSACTIONS OF 500 ROWS")
+        );
+    }
+
+    @Test
+    void batchAdaptive() throws Exception {
+        Batch batch = Batch.builder()
+            .id(IdUtils.create())
+            .type(Batch.class.getName())
+            .query(Property.of(query()))
+            .url(Property.of(neo4jContainer.getBoltUrl()))
+            .username(Property.of("neo4j"))
+            .password(Property.of(neo4jContainer.getAdminPassword()))
+            .from(Property.of(createTestFile().toString()))
+            .chunkSizing(Property.of(ChunkSizing.ADAPTIVE))
+            .build();
+
+        RunContext runContext = TestsUtils.mockRunContext(runContextFactory, batch, ImmutableMap.of());
+        Batch.Output run = batch.run(runContext);
+
+        assertThat(run.getUpdatedCount(), is(25000L));
+    }
+
+    @Test
+    void batchCheckpoint() throws Exception {
+        RunContext fileContext = runContextFactory.of(ImmutableMap.of());
+
+        File tempFile = fileContext.workingDir().createTempFile(".ion").toFile();
+        try (OutputStream output = new FileOutputStream(tempFile)) {
+            for (int i = 0; i < 100; i++) {
+                Map<String, Object> n1 = new HashMap<>();
+                n1.put("name", UUID.randomUUID().toString());
+                // a list of maps can't be stored as a property, failing the 4th chunk
+                n1.put("position", i == 35 ? List.of(Map.of("invalid", i)) : UUID.randomUUID().toString());
+                FileSerde.write(output, n1);
+            }
+        }
+        URI from = storageInterface.put(null, null, URI.create("/" + IdUtils.create() + ".ion"), new FileInputStream(tempFile));
+
+        String id = IdUtils.create();
+        Batch failing = Batch.builder()
+            .id(id)
+            .type(Batch.class.getName())
+            .query(Property.of(query()))
+            .url(Property.of(neo4jContainer.getBoltUrl()))
+            .username(Property.of("neo4j"))
+            .password(Property.of(neo4jContainer.getAdminPassword()))
+            .from(Property.of(from.toString()))
+            .chunk(Property.of(10))
+            .transactionMode(Property.of(TransactionMode.PER_CHUNK))
+            .checkpoint(Property.of(true))
+            .build();
+
+        // both attempts share the same task run, so the second one resumes from the checkpoint of the first one
+        RunContext runContext = TestsUtils.mockRunContext(runContextFactory, failing, ImmutableMap.of());
+        KVStore kvStore = runContext.namespaceKv(runContext.flowInfo().namespace());
+
+        assertThrows(Exception.class, () -> failing.run(runContext));
+
+        List<String> keys = kvStore.list().stream().map(KVEntry::key).filter(key -> key.startsWith("neo4j_batch_")).toList();
+        assertThat(keys.size(), is(1));
+        assertThat(((Number) kvStore.getValue(keys.getFirst()).orElseThrow().value()).longValue(), is(30L));
+
+        // the next attempt only sets the valid properties
+        Batch resumed = Batch.builder()
+            .id(id)
+            .type(Batch.class.getName())
+            .query(Property.of("UNWIND $props AS properties" + "\n" +
+                "CREATE (n:Person)" + "\n" +
+                "SET n.name = properties.name"))
+            .url(Property.of(neo4jContainer.getBoltUrl()))
+            .username(Property.of("neo4j"))
+            .password(Property.of(neo4jContainer.getAdminPassword()))
+            .from(Property.of(from.toString()))
+            .chunk(Property.of(10))
+            .transactionMode(Property.of(TransactionMode.PER_CHUNK))
+            .checkpoint(Property.of(true))
+            .build();
+
+        Batch.Output run = resumed.run(runContext);
+
+        assertThat(run.getNodesCreated(), is(70L));
+        assertThat(run.getRowCount(), is(7L));
+        assertThat(kvStore.list().stream().map(KVEntry::key).noneMatch(key -> key.startsWith("neo4j_batch_")), is(true));
+    }
+
+    @Test
+    void batchCheckpointConcurrent() throws Exception {
+        RunContext fileContext = runContextFactory.of(ImmutableMap.of());
+
+        File tempFile = fileContext.workingDir().createTempFile(".ion").toFile();
+        try (OutputStream output = new FileOutputStream(tempFile)) {
+            for (int i = 0; i < 100; i++) {
+                Map<String, Object> n1 = new HashMap<>();
+                n1.put("name", UUID.randomUUID().toString());
+                // a list of maps can't be stored as a property, failing the 4th chunk
+                n1.put("position", i == 35 ? List.of(Map.of("invalid", i)) : UUID.randomUUID().toString());
+                FileSerde.write(output, n1);
+            }
+        }
+        URI from = storageInterface.put(null, null, URI.create("/" + IdUtils.create() + ".ion"), new FileInputStream(tempFile));
+
+        String id = IdUtils.create();
+        Batch failing = Batch.builder()
+            .id(id)
+            .type(Batch.class.getName())
+            .query(Property.of("UNWIND $props AS properties" + "\n" +
+                "MERGE (n:Resumed {name: properties.name})" + "\n" +
+                "SET n.position = properties.position"))
+            .url(Property.of(neo4jContainer.getBoltUrl()))
+            .username(Property.of("neo4j"))
+            .password(Property.of(neo4jContainer.getAdminPassword()))
+            .from(Property.of(from.toString()))
+            .chunk(Property.of(10))
+            .concurrency(Property.of(4))
+            .transactionMode(Property.of(TransactionMode.PER_CHUNK))
+            .checkpoint(Property.of(true))
+            .build();
+
+        RunContext runContext = TestsUtils.mockRunContext(runContextFactory, failing, ImmutableMap.of());
+        KVStore kvStore = runContext.namespaceKv(runContext.flowInfo().namespace());
+
+        assertThrows(Exception.class, () -> failing.run(runContext));
+
+        // chunks after the failed one may be committed but only the prefix before it is saved
+        List<String> keys = kvStore.list().stream().map(KVEntry::key).filter(key -> key.startsWith("neo4j_batch_")).toList();
+        assertThat(keys.size(), is(1));
+        assertThat(((Number) kvStore.getValue(keys.getFirst()).orElseThrow().value()).longValue(), lessThanOrEqualTo(30L));
+
+        Batch resumed = Batch.builder()
+            .id(id)
+            .type(Batch.class.getName())
+            .query(Property.of("UNWIND $props AS properties" + "\n" +
+                "MERGE (n:Resumed {name: properties.name})"))
+            .url(Property.of(neo4jContainer.getBoltUrl()))
+            .username(Property.of("neo4j"))
+            .password(Property.of(neo4jContainer.getAdminPassword()))
+            .from(Property.of(from.toString()))
+            .chunk(Property.of(10))
+            .concurrency(Property.of(4))
+            .transactionMode(Property.of(TransactionMode.PER_CHUNK))
+            .checkpoint(Property.of(true))
+            .build();
+
+        resumed.run(runContext);
+
+        // the replayed chunks are merged, not duplicated
+        Query count = Query.builder()
+            .id(IdUtils.create())
+            .type(Query.class.getName())
+            .url(Property.of(neo4jContainer.getBoltUrl()))
+            .username(Property.of("neo4j"))
+            .password(Property.of(neo4jContainer.getAdminPassword()))
+            .query(Property.of("MATCH (n:Resumed) RETURN count(n) AS count"))
+            .storeType(Property.of(StoreType.FETCHONE))
+            .build();
+
+        Query.Output output = count.run(TestsUtils.mockRunContext(runContextFactory, count, ImmutableMap.of()));
+
+        assertThat(output.getRow().get("count"), is(100L));
+        assertThat(kvStore.list().stream().map(KVEntry::key).noneMatch(key -> key.startsWith("neo4j_batch_")), is(true));
+    }
+
+    @Test
+    void batchCheckpointDeadLetter() throws Exception {
+        Batch batch = Batch.builder()
+            .id(IdUtils.create())
+            .type(Batch.class.getName())
+            .query(Property.of(query()))
+            .url(Property.of(neo4jContainer.getBoltUrl()))
+            .username(Property.of("neo4j"))
+            .password(Property.of(neo4jContainer.getAdminPassword()))
+            .from(Property.of(createTestFile().toString()))
+            .onError(Property.of(OnError.DEAD_LETTER))
+            .checkpoint(Property.of(true))
+            .build();
+
+        assertThrows(IllegalArgumentException.class, () -> batch.run(TestsUtils.mockRunContext(runContextFactory, batch, ImmutableMap.of())));
+    }
+
+    @Test
+    void batchDeadLetter() throws Exception {
+        RunContext runContext = runContextFactory.of(ImmutableMap.of());
+
+        File tempFile = runContext.workingDir().createTempFile(".ion").toFile();
+        try (OutputStream output = new FileOutputStream(tempFile)) {
+            for (int i = 0; i < 100; i++) {
+                Map<String, Object> n1 = new HashMap<>();
+                n1.put("name", UUID.randomUUID().toString());
+                // a list of maps can't be stored as a property
+                n1.put("position", i % 10 == 0 ? List.of(Map.of("invalid", i)) : UUID.randomUUID().toString());
+                FileSerde.write(output, n1);
+            }
+        }
+        URI from = storageInterface.put(null, null, URI.create("/" + IdUtils.create() + ".ion"), new FileInputStream(tempFile));
+
+        Batch batch = Batch.builder()
+            .id(IdUtils.create())
+            .type(Batch.class.getName())
+            .query(Property.of(query()))
+            .url(Property.of(neo4jContainer.getBoltUrl()))
+            .username(Property.of("neo4j"))
+            .password(Property.of(neo4jContainer.getAdminPassword()))
+            .from(Property.of(from.toString()))
+            .chunk(Property.of(25))
+            .onError(Property.of(OnError.DEAD_LETTER))
+            .build();
+
+        Batch.Output run = batch.run(TestsUtils.mockRunContext(runContextFactory, batch, ImmutableMap.of()));
+
+        assertThat(run.getNodesCreated(), is(90L));
+        assertThat(run.getFailedRows(), is(10L));
+        assertThat(run.getDeadLetterUri(), notNullValue());
+    }
+
+    @Test
+    void batchCsv() throws Exception {
+        StringBuilder csv = new StringBuilder("name;age\n");
+        for (int i = 0; i < 1000; i++) {
+            csv.append(UUID.randomUUID()).append(";").append(i).append("\n");
+        }
+        URI from = storageInterface.put(null, null, URI.create("/" + IdUtils.create() + ".csv"), new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)));
+
+        Batch batch = Batch.builder()
+            .id(IdUtils.create())
+            .type(Batch.class.getName())
+            .query(Property.of("UNWIND $props AS properties" + "\n" +
+                "CREATE (n:Csv)" + "\n" +
+                "SET n = properties"))
+            .url(Property.of(neo4jContainer.getBoltUrl()))
+            .username(Property.of("neo4j"))
+            .password(Property.of(neo4jContainer.getAdminPassword()))
+            .from(Property.of(from.toString()))
+            .format(Property.of(FileFormat.CSV))
+            .csvDelimiter(Property.of(";"))
+            .csvColumnTypes(Property.of(Map.of("age", ColumnType.INTEGER)))
+            .build();
+
+        Batch.Output run = batch.run(TestsUtils.mockRunContext(runContextFactory, batch, ImmutableMap.of()));
+
+        assertThat(run.getNodesCreated(), is(1000L));
+        assertThat(run.getPropertiesSet(), is(2000L));
+    }
+
+    @Test
+    void batchCsvDelimiter() throws Exception {
+        for (String delimiter : List.of("", ";;")) {
+            Batch batch = Batch.builder()
+                .id(IdUtils.create())
+                .type(Batch.class.getName())
+                .query(Property.of(query()))
+                .url(Property.of(neo4jContainer.getBoltUrl()))
+                .username(Property.of("neo4j"))
+                .password(Property.of(neo4jContainer.getAdminPassword()))
+                .from(Property.of("kestra:///unused.csv"))
+                .format(Property.of(FileFormat.CSV))
+                .csvDelimiter(Property.of(delimiter))
+                .build();
+
+            assertThrows(IllegalArgumentException.class, () -> batch.run(TestsUtils.mockRunContext(runContextFactory, batch, ImmutableMap.of())));
+        }
+    }
+
+    @Test
+    void batchGzip() throws Exception {
+        RunContext runContext = runContextFactory.of(ImmutableMap.of());
+
+        File tempFile = runContext.workingDir().createTempFile(".ion.gz").toFile();
+        try (OutputStream output = new GZIPOutputStream(new FileOutputStream(tempFile))) {
+            for (int i = 0; i < 1000; i++) {
+                FileSerde.write(output, Map.of("name", UUID.randomUUID().toString()));
+            }
+        }
+        URI from = storageInterface.put(null, null, URI.create("/" + IdUtils.create() + ".ion.gz"), new FileInputStream(tempFile));
+
+        Batch batch = Batch.builder()
+            .id(IdUtils.create())
+            .type(Batch.class.getName())
+            .query(Property.of(query()))
+            .url(Property.of(neo4jContainer.getBoltUrl()))
+            .username(Property.of("neo4j"))
+            .password(Property.of(neo4jContainer.getAdminPassword()))
+            .from(Property.of(from.toString()))
+            .build();
+
+        Batch.Output run = batch.run(TestsUtils.mockRunContext(runContextFactory, batch, ImmutableMap.of()));
+
+        assertThat(run.getNodesCreated(), is(1000L));
     }
 
     URI createTestFile() throws Exception {
@@ -0,0 +1,114 @@
+package io.kestra.plugin.neo4j;
+
+import org.junit.jupiter.api.Test;
+import org.neo4j.driver.exceptions.ClientException;
+import org.neo4j.driver.exceptions.TransientException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BatchWriterTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchWriterTest.class);
+
+    private static Retry retry(int maxAttempts) {
+        return BatchWriter.retry(maxAttempts, Duration.ofMillis(1), Duration.ofMillis(5), 0, LOGGER);
+    }
+
+    private static Mono<String> failing(AtomicInteger attempts, int failures, RuntimeException error) {
+        return Mono.fromCallable(() -> {
+            if (attempts.incrementAndGet() <= failures) {
+                throw error;
+            }
+
+            return "committed";
+        });
+    }
+
+    @Test
+    void retryTransient() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = failing(attempts, 2, new TransientException("Neo.TransientError.Transaction.DeadlockDetected", "deadlock"))
+            .retryWhen(retry(3))
+            .block();
+
+        assertThat(result, is("committed"));
+        assertThat(attempts.get(), is(3));
+    }
+
+    @Test
+    void retryExhausted() {
+        AtomicInteger attempts = new AtomicInteger();
+        TransientException error = new TransientException("Neo.TransientError.Transaction.DeadlockDetected", "deadlock");
+
+        TransientException thrown = assertThrows(
+            TransientException.class,
+            () -> failing(attempts, 10, error).retryWhen(retry(3)).block()
+        );
+
+        assertThat(thrown, sameInstance(error));
+        assertThat(attempts.get(), is(3));
+    }
+
+    @Test
+    void retryOnlyTransient() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(
+            ClientException.class,
+            () -> failing(attempts, 1, new ClientException("Neo.ClientError.Statement.SyntaxError", "syntax")).retryWhen(retry(3)).block()
+        );
+
+        assertThat(attempts.get(), is(1));
+    }
+
+    @Test
+    void retrySingleAttempt() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(
+            TransientException.class,
+            () -> failing(attempts, 1, new TransientException("Neo.TransientError.Transaction.DeadlockDetected", "deadlock")).retryWhen(retry(1)).block()
+        );
+
+        assertThat(attempts.get(), is(1));
+    }
+
+    @Test
+    void retryInvalidAttempts() {
+        assertThrows(IllegalArgumentException.class, () -> retry(0));
+    }
+
+    @Test
+    void halves() {
+        List<List<Object>> chunks = List.of(List.of(1, 2), List.of(3), List.of(4, 5));
+
+        assertThat(BatchWriter.halves(chunks), is(List.of(
+            List.of(List.of(1, 2)),
+            List.of(List.of(3), List.of(4, 5))
+        )));
+
+        // a single chunk is split by rows
+        assertThat(BatchWriter.halves(List.of(List.of(1, 2, 3))), is(List.of(
+            List.of(List.of(1)),
+            List.of(List.of(2, 3))
+        )));
+    }
+
+    @Test
+    void splittable() {
+        assertThat(BatchWriter.splittable(List.of(List.of(1), List.of(2))), is(true));
+        assertThat(BatchWriter.splittable(List.of(List.of(1, 2))), is(true));
+        assertThat(BatchWriter.splittable(List.of(List.of(1))), is(false));
+    }
+}
@@ -0,0 +1,59 @@
+package io.kestra.plugin.neo4j;
+
+import io.kestra.plugin.neo4j.models.Compression;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class CompressionsTest {
+    private static final byte[] CONTENT = "{\"name\":\"aDeveloper\"}\n{\"name\":\"aQa\"}\n".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void detect() throws IOException {
+        for (Compression compression : Compression.values()) {
+            byte[] compressed = compress(compression);
+            InputStream input = new BufferedInputStream(new ByteArrayInputStream(compressed));
+
+            assertThat(compression.name(), Compressions.detect(input), is(compression));
+            // the magic bytes are left in the stream
+            assertThat(compression.name(), input.readAllBytes(), is(compressed));
+        }
+    }
+
+    @Test
+    void roundTrip() throws IOException {
+        for (Compression compression : Compression.values()) {
+            try (InputStream input = Compressions.decompress(new ByteArrayInputStream(compress(compression)), compression)) {
+                assertThat(compression.name(), input.readAllBytes(), is(CONTENT));
+            }
+        }
+    }
+
+    @Test
+    void roundTripDetected() throws IOException {
+        for (Compression compression : Compression.values()) {
+            try (InputStream input = Compressions.decompress(new ByteArrayInputStream(compress(compression)), null)) {
+                assertThat(compression.name(), input.readAllBytes(), is(CONTENT));
+            }
+        }
+    }
+
+    private static byte[] compress(Compression compression) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (OutputStream output = Compressions.compress(bytes, compression)) {
+            output.write(CONTENT);
+        }
+
+        return bytes.toByteArray();
+    }
+}
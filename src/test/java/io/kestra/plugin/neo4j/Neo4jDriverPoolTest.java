@@ -0,0 +1,61 @@
+package io.kestra.plugin.neo4j;
+
+import org.junit.jupiter.api.Test;
+import org.neo4j.driver.AuthTokens;
+import org.neo4j.driver.GraphDatabase;
+
+import java.time.Duration;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+class Neo4jDriverPoolTest {
+    private static Neo4jDriverPool.Key key(String url) {
+        return new Neo4jDriverPool.Key(url, "none", "default");
+    }
+
+    @Test
+    void reuse() {
+        Neo4jDriverPool pool = new Neo4jDriverPool(2, Duration.ofMinutes(5));
+
+        try (
+            Neo4jDriverPool.Lease first = pool.acquire(key("bolt://localhost:7687"), () -> GraphDatabase.driver("bolt://localhost:7687", AuthTokens.none()));
+            Neo4jDriverPool.Lease second = pool.acquire(key("bolt://localhost:7687"), () -> GraphDatabase.driver("bolt://localhost:7687", AuthTokens.none()));
+            Neo4jDriverPool.Lease other = pool.acquire(key("bolt://localhost:7688"), () -> GraphDatabase.driver("bolt://localhost:7688", AuthTokens.none()))
+        ) {
+            assertThat(first.driver(), sameInstance(second.driver()));
+            assertThat(first.driver(), not(sameInstance(other.driver())));
+            assertThat(pool.size(), is(2));
+        }
+    }
+
+    @Test
+    void cap() {
+        Neo4jDriverPool pool = new Neo4jDriverPool(1, Duration.ofMinutes(5));
+
+        try (Neo4jDriverPool.Lease first = pool.acquire(key("bolt://localhost:7687"), () -> GraphDatabase.driver("bolt://localhost:7687", AuthTokens.none()))) {
+            // all cached drivers are busy, the lease owns its own driver
+            try (Neo4jDriverPool.Lease second = pool.acquire(key("bolt://localhost:7688"), () -> GraphDatabase.driver("bolt://localhost:7688", AuthTokens.none()))) {
+                assertThat(first.driver(), not(sameInstance(second.driver())));
+                assertThat(pool.size(), is(1));
+            }
+        }
+
+        // the first driver is idle now and get evicted in favor of the new one
+        try (Neo4jDriverPool.Lease third = pool.acquire(key("bolt://localhost:7688"), () -> GraphDatabase.driver("bolt://localhost:7688", AuthTokens.none()))) {
+            assertThat(pool.size(), is(1));
+        }
+    }
+
+    @Test
+    void idle() {
+        Neo4jDriverPool pool = new Neo4jDriverPool(2, Duration.ZERO);
+
+        pool.acquire(key("bolt://localhost:7687"), () -> GraphDatabase.driver("bolt://localhost:7687", AuthTokens.none())).close();
+        pool.evictIdle();
+
+        assertThat(pool.size(), is(0));
+    }
+}
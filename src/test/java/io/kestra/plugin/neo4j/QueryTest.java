@@ -2,11 +2,18 @@ package io.kestra.plugin.neo4j;
 
 import com.google.common.collect.ImmutableMap;
 import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.executions.AbstractMetricEntry;
 import io.kestra.core.models.property.Property;
 import io.kestra.core.runners.RunContext;
 import io.kestra.core.runners.RunContextFactory;
 import io.kestra.core.utils.IdUtils;
 import io.kestra.core.utils.TestsUtils;
+import io.kestra.plugin.neo4j.models.AccessMode;
+import io.kestra.plugin.neo4j.models.Compression;
+import io.kestra.plugin.neo4j.models.FetchOverflow;
+import io.kestra.plugin.neo4j.models.FileFormat;
+import io.kestra.plugin.neo4j.models.PartitionOutput;
+import io.kestra.plugin.neo4j.models.ProfileMode;
 import io.kestra.plugin.neo4j.models.StoreType;
 import jakarta.inject.Inject;
 import org.junit.jupiter.api.BeforeAll;
@@ -22,12 +29,19 @@ import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import org.testcontainers.utility.DockerImageName;
 
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.hasItems;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -111,6 +125,128 @@ class QueryTest {
         assertThat((List<String>) row.get("friends"), containsInAnyOrder("otherDevelopers", "PO", "otherQas"));
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void fetchColumns() throws Exception {
+        Query query = Query.builder()
+            .id(IdUtils.create())
+            .type(Query.class.getName())
+            .query(Property.of("MATCH (p:Person) \n" +
+                "RETURN p.name AS name, size(p.friends) AS friends, p AS person \n" +
+                "ORDER BY name"))
+            .includeMetadata(Property.of(true))
+            .url(Property.of(neo4jContainer.getBoltUrl()))
+            .username(Property.of("neo4j"))
+            .password(Property.of(neo4jContainer.getAdminPassword()))
+            .storeType(Property.of(StoreType.FETCH))
+            .build();
+
+        RunContext runContext = TestsUtils.mockRunContext(runContextFactory, query, ImmutableMap.of());
+        Query.Output run = query.run(runContext);
+
+        List<Map<String, Object>> rows = run.getRows();
+        assertThat(rows.size(), is(2));
+
+        assertThat(rows.get(0).get("name"), is("aDeveloper"));
+        assertThat(rows.get(0).get("friends"), is(3L));
+
+        Map<String, Object> person = (Map<String, Object>) rows.get(0).get("person");
+        assertThat(person.get("name"), is("aDeveloper"));
+        assertThat((List<String>) person.get("_labels"), contains("Person"));
+        assertThat(person.get("_elementId"), notNullValue());
+    }
+
+    @Test
+    void fetchProfile() throws Exception {
+        Query query = Query.builder()
+            .id(IdUtils.create())
+            .type(Query.class.getName())
+            .query(Property.of(query()))
+            .profile(Property.of(ProfileMode.PROFILE))
+            .url(Property.of(neo4jContainer.getBoltUrl()))
+            .username(Property.of("neo4j"))
+            .password(Property.of(neo4jContainer.getAdminPassword()))
+            .storeType(Property.of(StoreType.FETCH))
+            .build();
+
+        RunContext runContext = TestsUtils.mockRunContext(runContextFactory, query, ImmutableMap.of());
+        Query.Output run = query.run(runContext);
+
+        assertThat(run.getRows().size(), is(2));
+        assertThat(run.getPlanUri(), notNullValue());
+
+        List<String> metrics = runContext.metrics().stream().map(AbstractMetricEntry::getName).toList();
+        assertThat(metrics, hasItems("profile.db.hits", "profile.rows"));
+    }
+
+    @Test
+    void fetchParameters() throws Exception {
+        Query query = Query.builder()
+            .id(IdUtils.create())
+            .type(Query.class.getName())
+            .query(Property.of("MATCH (p:Person) \n" +
+                "WHERE p.name = $name \n" +
+                "RETURN p"))
+            .parameters(Property.of(Map.of("name", "aQa")))
+            .url(Property.of(neo4jContainer.getBoltUrl()))
+            .username(Property.of("neo4j"))
+            .password(Property.of(neo4jContainer.getAdminPassword()))
+            .storeType(Property.of(StoreType.FETCHONE))
+            .build();
+
+        RunContext runContext = TestsUtils.mockRunContext(runContextFactory, query, ImmutableMap.of());
+        Query.Output run = query.run(runContext);
+
+        assertThat(run.getSize(), is(1L));
+        assertThat(run.getRow().get("name"), is("aQa"));
+    }
+
+    @Test
+    void fetchAccessMode() throws Exception {
+        Query query = Query.builder()
+            .id(IdUtils.create())
+            .type(Query.class.getName())
+            .query(Property.of("MATCH (p:Person) \n" +
+                "WHERE p.name = $name \n" +
+                "RETURN p"))
+            .parameters(Property.of(Map.of("name", "aQa")))
+            .accessMode(Property.of(AccessMode.AUTO))
+            .url(Property.of(neo4jContainer.getBoltUrl()))
+            .username(Property.of("neo4j"))
+            .password(Property.of(neo4jContainer.getAdminPassword()))
+            .storeType(Property.of(StoreType.FETCHONE))
+            .build();
+
+        RunContext runContext = TestsUtils.mockRunContext(runContextFactory, query, ImmutableMap.of());
+        Query.Output run = query.run(runContext);
+
+        assertThat(run.getSize(), is(1L));
+        assertThat(run.getRow().get("name"), is("aQa"));
+    }
+
+    @Test
+    void fetchDatabase() throws Exception {
+        Query query = Query.builder()
+            .id(IdUtils.create())
+            .type(Query.class.getName())
+            .query(Property.of("MATCH (p:Person) \n" +
+                "WHERE p.name = $name \n" +
+                "RETURN p"))
+            .parameters(Property.of(Map.of("name", "aQa")))
+            .database(Property.of("neo4j"))
+            .url(Property.of(neo4jContainer.getBoltUrl()))
+            .username(Property.of("neo4j"))
+            .password(Property.of(neo4jContainer.getAdminPassword()))
+            .storeType(Property.of(StoreType.FETCHONE))
+            .build();
+
+        RunContext runContext = TestsUtils.mockRunContext(runContextFactory, query, ImmutableMap.of());
+        Query.Output run = query.run(runContext);
+
+        assertThat(run.getSize(), is(1L));
+        assertThat(run.getRow().get("name"), is("aQa"));
+    }
+
     @Test
     void store() throws Exception {
         Query query = Query.builder()
@@ -129,6 +265,188 @@ class QueryTest {
         assertThat(run.getSize(), is(2L));
     }
 
+    @Test
+    void fetchSpill() throws Exception {
+        Query query = Query.builder()
+            .id(IdUtils.create())
+            .type(Query.class.getName())
+            .query(Property.of(query()))
+            .url(Property.of(neo4jContainer.getBoltUrl()))
+            .username(Property.of("neo4j"))
+            .password(Property.of(neo4jContainer.getAdminPassword()))
+            .storeType(Property.of(StoreType.FETCH))
+            .fetchLimit(Property.of(1))
+            .build();
+
+        RunContext runContext = TestsUtils.mockRunContext(runContextFactory, query, ImmutableMap.of());
+        Query.Output run = query.run(runContext);
+
+        assertThat(run.getRows().size(), is(1));
+        assertThat(run.getSize(), is(2L));
+        assertThat(run.getUri(), notNullValue());
+    }
+
+    @Test
+    void fetchOverflowFail() throws Exception {
+        Query query = Query.builder()
+            .id(IdUtils.create())
+            .type(Query.class.getName())
+            .query(Property.of(query()))
+            .url(Property.of(neo4jContainer.getBoltUrl()))
+            .username(Property.of("neo4j"))
+            .password(Property.of(neo4jContainer.getAdminPassword()))
+            .storeType(Property.of(StoreType.FETCH))
+            .fetchLimit(Property.of(1))
+            .fetchOverflow(Property.of(FetchOverflow.FAIL))
+            .build();
+
+        RunContext runContext = TestsUtils.mockRunContext(runContextFactory, query, ImmutableMap.of());
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> query.run(runContext));
+        assertThat(e.getMessage(), is("The query returned more than 1 rows"));
+    }
+
+    @Test
+    void fetchOverflowTruncate() throws Exception {
+        Query query = Query.builder()
+            .id(IdUtils.create())
+            .type(Query.class.getName())
+            .query(Property.of(query()))
+            .url(Property.of(neo4jContainer.getBoltUrl()))
+            .username(Property.of("neo4j"))
+            .password(Property.of(neo4jContainer.getAdminPassword()))
+            .storeType(Property.of(StoreType.FETCH))
+            .fetchLimit(Property.of(1))
+            .fetchOverflow(Property.of(FetchOverflow.TRUNCATE))
+            .build();
+
+        RunContext runContext = TestsUtils.mockRunContext(runContextFactory, query, ImmutableMap.of());
+        Query.Output run = query.run(runContext);
+
+        assertThat(run.getRows().size(), is(1));
+        assertThat(run.getSize(), is(1L));
+        assertThat(run.getUri(), nullValue());
+    }
+
+    @Test
+    void storePartitioned() throws Exception {
+        Query query = Query.builder()
+            .id(IdUtils.create())
+            .type(Query.class.getName())
+            .query(Property.of("MATCH (p:Person) \n" +
+                "WHERE id(p) % $partitions = $partition \n" +
+                "RETURN p"))
+            .url(Property.of(neo4jContainer.getBoltUrl()))
+            .username(Property.of("neo4j"))
+            .password(Property.of(neo4jContainer.getAdminPassword()))
+            .storeType(Property.of(StoreType.STORE))
+            .partitions(Property.of(3))
+            .partitionOutput(Property.of(PartitionOutput.SEGMENTS))
+            .build();
+
+        RunContext runContext = TestsUtils.mockRunContext(runContextFactory, query, ImmutableMap.of());
+        Query.Output run = query.run(runContext);
+
+        assertThat(run.getSize(), is(2L));
+        assertThat(run.getUris().size(), is(3));
+    }
+
+    @Test
+    void storeCsv() throws Exception {
+        Query query = Query.builder()
+            .id(IdUtils.create())
+            .type(Query.class.getName())
+            .query(Property.of(query()))
+            .url(Property.of(neo4jContainer.getBoltUrl()))
+            .username(Property.of("neo4j"))
+            .password(Property.of(neo4jContainer.getAdminPassword()))
+            .storeType(Property.of(StoreType.STORE))
+            .storeFormat(Property.of(FileFormat.CSV))
+            .storeColumns(Property.of(List.of("name", "friends")))
+            .build();
+
+        RunContext runContext = TestsUtils.mockRunContext(runContextFactory, query, ImmutableMap.of());
+        Query.Output run = query.run(runContext);
+
+        assertThat(run.getSize(), is(2L));
+
+        String csv = new String(runContext.storage().getFile(run.getUri()).readAllBytes(), StandardCharsets.UTF_8);
+        assertThat(csv.lines().count(), is(3L));
+        assertThat(csv.lines().findFirst().orElseThrow(), is("name,friends"));
+    }
+
+    @Test
+    void storeCompressed() throws Exception {
+        Query query = Query.builder()
+            .id(IdUtils.create())
+            .type(Query.class.getName())
+            .query(Property.of(query()))
+            .url(Property.of(neo4jContainer.getBoltUrl()))
+            .username(Property.of("neo4j"))
+            .password(Property.of(neo4jContainer.getAdminPassword()))
+            .storeType(Property.of(StoreType.STORE))
+            .storeFormat(Property.of(FileFormat.JSONL))
+            .compression(Property.of(Compression.ZSTD))
+            .build();
+
+        RunContext runContext = TestsUtils.mockRunContext(runContextFactory, query, ImmutableMap.of());
+        Query.Output run = query.run(runContext);
+
+        assertThat(run.getSize(), is(2L));
+        assertThat(run.getUri().getPath(), endsWith(".jsonl.zst"));
+
+        // the compression is detected from the magic bytes
+        try (InputStream input = Compressions.decompress(runContext.storage().getFile(run.getUri()), null)) {
+            String jsonl = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+            assertThat(jsonl.lines().count(), is(2L));
+        }
+    }
+
+    @Test
+    void storePaginated() throws Exception {
+        Query query = Query.builder()
+            .id(IdUtils.create())
+            .type(Query.class.getName())
+            .query(Property.of("MATCH (p:Person) \n" +
+                "WHERE $cursor IS NULL OR p.name > $cursor \n" +
+                "RETURN p ORDER BY p.name LIMIT $limit"))
+            .url(Property.of(neo4jContainer.getBoltUrl()))
+            .username(Property.of("neo4j"))
+            .password(Property.of(neo4jContainer.getAdminPassword()))
+            .storeType(Property.of(StoreType.STORE))
+            .paginationKey(Property.of("name"))
+            .pageSize(Property.of(1))
+            .build();
+
+        RunContext runContext = TestsUtils.mockRunContext(runContextFactory, query, ImmutableMap.of());
+        Query.Output run = query.run(runContext);
+
+        assertThat(run.getSize(), is(2L));
+    }
+
+    @Test
+    void storePaginatedTemporal() throws Exception {
+        Query query = Query.builder()
+            .id(IdUtils.create())
+            .type(Query.class.getName())
+            .query(Property.of("UNWIND range(1, 5) AS i \n" +
+                "WITH date('2024-01-01') + duration({days: i}) AS day \n" +
+                "WHERE $cursor IS NULL OR day > $cursor \n" +
+                "RETURN day ORDER BY day LIMIT $limit"))
+            .url(Property.of(neo4jContainer.getBoltUrl()))
+            .username(Property.of("neo4j"))
+            .password(Property.of(neo4jContainer.getAdminPassword()))
+            .storeType(Property.of(StoreType.STORE))
+            .paginationKey(Property.of("day"))
+            .pageSize(Property.of(2))
+            .build();
+
+        RunContext runContext = TestsUtils.mockRunContext(runContextFactory, query, ImmutableMap.of());
+        Query.Output run = query.run(runContext);
+
+        assertThat(run.getSize(), is(5L));
+    }
+
     @Test
     void failed() throws Exception {
         Query query = Query.builder()
@@ -0,0 +1,45 @@
+package io.kestra.plugin.neo4j;
+
+import io.kestra.plugin.neo4j.models.Compression;
+import io.kestra.plugin.neo4j.models.FileFormat;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class ResultFileWriterTest {
+    @Test
+    void csvBytes() throws IOException {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("name", "aQa");
+        row.put("picture", new byte[]{1, 2, 3});
+
+        assertThat(write(FileFormat.CSV, row), is("name,picture\naQa,AQID\n"));
+    }
+
+    @Test
+    void jsonlBytes() throws IOException {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("name", "aQa");
+        row.put("picture", new byte[]{1, 2, 3});
+
+        assertThat(write(FileFormat.JSONL, row), is("{\"name\":\"aQa\",\"picture\":\"AQID\"}\n"));
+    }
+
+    private static String write(FileFormat format, Map<String, Object> row) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        try (ResultFileWriter writer = new ResultFileWriter.Format(format, null, Compression.NONE).open(output)) {
+            writer.writeAll(List.of(row).iterator());
+        }
+
+        return output.toString(StandardCharsets.UTF_8);
+    }
+}